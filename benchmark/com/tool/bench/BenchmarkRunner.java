@@ -0,0 +1,34 @@
+package com.tool.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this source root with the allocation ({@link GCProfiler}) and {@link PeakHeapProfiler}
+ * profilers and writes the results to {@code jmh-result.json}. Takes the usual JMH command line, e.g.
+ * {@code SyncDiffBenchmark -p rows=10000,1000000}; without a benchmark pattern every benchmark runs.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .addProfiler(PeakHeapProfiler.class);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            options.include("com\\.tool\\..*Benchmark");
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
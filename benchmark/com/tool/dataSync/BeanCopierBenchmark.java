@@ -0,0 +1,54 @@
+package com.tool.dataSync;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source to stage copy through {@link BeanUtils#copyProperties(Object, Object)} (the original conversion) versus
+ * {@link GeneratedBeanCopier}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanCopierBenchmark {
+
+    private PropertyComparisonBenchmark.BenchSource source;
+    private PropertyComparisonBenchmark.BenchStage stage;
+    private BeanCopier generatedBeanCopier;
+
+    @Setup
+    public void setUp() {
+
+        source = PropertyComparisonBenchmark.BenchSource.sample();
+        stage = new PropertyComparisonBenchmark.BenchStage();
+        generatedBeanCopier = new GeneratedBeanCopier();
+    }
+
+    @Benchmark
+    public Object springBeanUtils() {
+
+        BeanUtils.copyProperties(source, stage);
+        return stage;
+    }
+
+    @Benchmark
+    public Object generatedBeanCopier() {
+
+        generatedBeanCopier.copy(source, stage);
+        return stage;
+    }
+}
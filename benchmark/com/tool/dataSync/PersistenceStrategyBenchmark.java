@@ -0,0 +1,147 @@
+package com.tool.dataSync;
+
+import com.tool.dataSync.bench.BenchStageRow;
+import com.tool.dataSync.bench.BenchStageRowRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows/sec of the {@link SyncPersistenceStrategy} implementations against an embedded H2 database.
+ * The reported ops/s are rows/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersistenceStrategyBenchmark {
+
+    private static final int ROWS = 10000;
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"jpaRepository", "entityManager", "jdbcBatch"})
+    private String strategy;
+
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private SyncPersistenceStrategy<BenchStageRow> persistenceStrategy;
+    private List<BenchStageRow> existingRows;
+
+    @Setup
+    public void setUp() {
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:persistence_bench;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists bench_stage_row (id bigint auto_increment primary key, employeeId bigint not null, "
+                + "employeeName varchar(100), campCode varchar(20), otHours real not null, workDate date, createdAt timestamp, updatedAt timestamp)");
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(BenchStageRow.class.getPackage().getName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE));
+        jpaProperties.setProperty("hibernate.order_inserts", "true");
+        jpaProperties.setProperty("hibernate.order_updates", "true");
+        factoryBean.setJpaProperties(jpaProperties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        if ("jpaRepository".equals(strategy)) {
+            BenchStageRowRepository repository = new JpaRepositoryFactory(entityManager).getRepository(BenchStageRowRepository.class);
+            persistenceStrategy = new JpaRepositoryPersistenceStrategy<>(repository);
+        } else if ("entityManager".equals(strategy)) {
+            persistenceStrategy = new EntityManagerBatchPersistenceStrategy<>(entityManager, BenchStageRow.class, BATCH_SIZE);
+        } else {
+            persistenceStrategy = new JdbcBatchPersistenceStrategy<>(jdbcTemplate, BenchStageRow.class, BATCH_SIZE);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void seed() {
+
+        jdbcTemplate.execute("truncate table bench_stage_row");
+        transactionTemplate.execute(status -> {
+            new JdbcBatchPersistenceStrategy<>(jdbcTemplate, BenchStageRow.class, BATCH_SIZE).insert(newRows());
+            return null;
+        });
+        existingRows = jdbcTemplate.query("select * from bench_stage_row", new BeanPropertyRowMapper<>(BenchStageRow.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insert() {
+
+        List<BenchStageRow> rows = newRows();
+        transactionTemplate.execute(status -> {
+            persistenceStrategy.insert(rows);
+            return null;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void update() {
+
+        existingRows.forEach(x -> x.setOtHours(x.getOtHours() + 0.5f));
+        transactionTemplate.execute(status -> {
+            persistenceStrategy.update(existingRows);
+            return null;
+        });
+    }
+
+    private static List<BenchStageRow> newRows() {
+
+        List<BenchStageRow> rows = new ArrayList<>(ROWS);
+        Date workDate = new Date();
+        for (int i = 0; i < ROWS; i++) {
+            BenchStageRow row = new BenchStageRow();
+            row.setEmployeeId(i);
+            row.setEmployeeName("employee " + i);
+            row.setCampCode("CAMP" + (i % 40));
+            row.setOtHours(i % 300 / 10f);
+            row.setWorkDate(workDate);
+            row.setCreatedAt(workDate);
+            row.setUpdatedAt(workDate);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,143 @@
+package com.tool.dataSync;
+
+import lombok.Data;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Row comparison through {@link PropertyUtils} (the original compareData path) versus {@link PropertyComparisonPlan}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyComparisonBenchmark {
+
+    private static final DecimalFormat FLOAT_ROUND = new DecimalFormat("#.######");
+
+    @Param({"true", "false"})
+    private boolean changed;
+
+    private BenchSource source;
+    private BenchStage stage;
+    private Set<String> properties;
+    private PropertyComparisonPlan plan;
+
+    @Setup
+    public void setUp() {
+
+        source = BenchSource.sample();
+        stage = BenchStage.copyOf(source);
+        if (changed) {
+            stage.setOtHours(stage.getOtHours() + 1);
+        }
+        properties = Arrays.stream(BenchSource.class.getDeclaredFields()).filter(x -> !x.isAnnotationPresent(IgnoreCompare.class))
+                .map(x -> x.getName()).collect(Collectors.toSet());
+        plan = PropertyComparisonPlan.of(BenchSource.class, BenchStage.class);
+    }
+
+    @Benchmark
+    public boolean propertyUtils() throws Exception {
+
+        for (String property : properties) {
+            Object sourceValue = PropertyUtils.getProperty(source, property);
+            Object stageValue = PropertyUtils.getProperty(stage, property);
+            if (sourceValue instanceof Float) {
+                sourceValue = Float.valueOf(FLOAT_ROUND.format(sourceValue));
+            }
+            if (sourceValue != stageValue && (sourceValue == null || !sourceValue.equals(stageValue))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean comparisonPlan() {
+
+        for (PropertyComparisonPlan.PropertyComparator comparator : plan.getComparators()) {
+            if (comparator.differs(source, stage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Data
+    public static class BenchSource {
+
+        private long employeeId;
+        private String employeeName;
+        private String campCode;
+        private String jobCode;
+        private int workingDays;
+        private float otHours;
+        private Float dailyAverageOt;
+        private double salary;
+        private boolean active;
+        private Date workDate;
+        @IgnoreCompare
+        private Date updatedAt;
+
+        static BenchSource sample() {
+
+            BenchSource source = new BenchSource();
+            source.setEmployeeId(1000123L);
+            source.setEmployeeName("benchmark employee");
+            source.setCampCode("ICN1");
+            source.setJobCode("CDM");
+            source.setWorkingDays(22);
+            source.setOtHours(31.5f);
+            source.setDailyAverageOt(1.431818f);
+            source.setSalary(3200000d);
+            source.setActive(true);
+            source.setWorkDate(new Date(1538319600000L));
+            source.setUpdatedAt(new Date());
+            return source;
+        }
+    }
+
+    @Data
+    public static class BenchStage {
+
+        private long employeeId;
+        private String employeeName;
+        private String campCode;
+        private String jobCode;
+        private int workingDays;
+        private float otHours;
+        private Float dailyAverageOt;
+        private double salary;
+        private boolean active;
+        private Date workDate;
+        private Date updatedAt;
+
+        static BenchStage copyOf(BenchSource source) {
+
+            BenchStage stage = new BenchStage();
+            BeanUtils.copyProperties(source, stage);
+            stage.setWorkDate(new Date(source.getWorkDate().getTime()));
+            return stage;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tool.dataSync;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a {@link StageIndex} and matching every source row against it, for the map of composed String keys most
+ * services use versus {@link CompactStageIndex} with a {@link LongKeyCodec}. Run with {@code BenchmarkRunner} and
+ * compare {@code heap.peak} for the memory per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StageIndexBenchmark {
+
+    private static final LongKeyCodec<SyncDiffBenchmark.DiffSource, SyncDiffBenchmark.DiffStage> KEY_CODEC =
+            new LongKeyCodec<SyncDiffBenchmark.DiffSource, SyncDiffBenchmark.DiffStage>() {
+
+                @Override
+                public long encodeSource(SyncDiffBenchmark.DiffSource source) {
+
+                    return LongKeyCodec.pack((int) source.getEmployeeId(), (int) (source.getWorkDate().getTime() / 86400000L));
+                }
+
+                @Override
+                public long encodeStage(SyncDiffBenchmark.DiffStage stage) {
+
+                    return LongKeyCodec.pack((int) stage.getEmployeeId(), (int) (stage.getWorkDate().getTime() / 86400000L));
+                }
+            };
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"hash", "compact"})
+    private String index;
+
+    private List<SyncDiffBenchmark.DiffSource> sources;
+    private List<SyncDiffBenchmark.DiffStage> stages;
+
+    @Setup(Level.Trial)
+    public void setUpSources() {
+
+        sources = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            sources.add(SyncDiffBenchmark.DiffSource.sample(i));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpStages() {
+
+        stages = new ArrayList<>(rows);
+        sources.forEach(x -> stages.add(SyncDiffBenchmark.DiffStage.copyOf(x)));
+    }
+
+    @Benchmark
+    public StageIndex<SyncDiffBenchmark.DiffSource, SyncDiffBenchmark.DiffStage> buildAndMatch() {
+
+        StageIndex<SyncDiffBenchmark.DiffSource, SyncDiffBenchmark.DiffStage> stageIndex = "hash".equals(index)
+                ? new HashStageIndex<>(stages, x -> x.getEmployeeId() + "_" + x.getWorkDate().getTime(), x -> x.getEmployeeId() + "_" + x.getWorkDate().getTime())
+                : new CompactStageIndex<>(stages, KEY_CODEC);
+        for (SyncDiffBenchmark.DiffSource source : sources) {
+            SyncDiffBenchmark.DiffStage stage = stageIndex.findUnmatched(source, (x, y) -> true);
+            if (stage != null) {
+                stage.setAction(SyncAction.DEFAULT.getCode());
+            }
+        }
+        return stageIndex;
+    }
+}
@@ -0,0 +1,267 @@
+package com.tool.dataSync;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one {@link AbstractIncSyncServiceImpl#syncData(List, List)} with no-op persistence, i.e. the key map
+ * build, the diff and the stage/log/target conversions. {@code changeRatio} of the stage rows differ from their
+ * source row and {@code duplicateRatio} of the keys have an extra stage row that gets deleted. The diff rewrites
+ * the stage rows, so they are rebuilt before every iteration. The 10M rows case needs about 12g of heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class SyncDiffBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    @Param({"0.0", "0.1"})
+    private double changeRatio;
+
+    @Param({"0.0", "0.01"})
+    private double duplicateRatio;
+
+    @Param({"1", "4"})
+    private int diffParallelism;
+
+    private BenchSyncService service;
+    private List<DiffSource> sources;
+    private List<DiffStage> stages;
+
+    @Setup(Level.Trial)
+    public void setUpSources() {
+
+        service = new BenchSyncService(diffParallelism);
+        sources = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            sources.add(DiffSource.sample(i));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpStages() {
+
+        SplittableRandom random = new SplittableRandom(42);
+        stages = new ArrayList<>((int) (rows * (1 + duplicateRatio)) + 1);
+        for (DiffSource source : sources) {
+            DiffStage stage = DiffStage.copyOf(source);
+            if (random.nextDouble() < changeRatio) {
+                stage.setOtHours(stage.getOtHours() + 1);
+            }
+            stages.add(stage);
+            if (random.nextDouble() < duplicateRatio) {
+                stages.add(DiffStage.copyOf(source));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<DiffStage> syncData() {
+
+        service.syncData(sources, stages);
+        return stages;
+    }
+
+    static final class BenchSyncService extends AbstractIncSyncServiceImpl<DiffSource, DiffStage, DiffTarget, DiffLog> {
+
+        private final int diffParallelism;
+
+        BenchSyncService(int diffParallelism) {
+
+            this.diffParallelism = diffParallelism;
+        }
+
+        @Override
+        protected Object composeStageUniqueObj(DiffStage x) {
+
+            return x.getEmployeeId();
+        }
+
+        @Override
+        protected Object composeSourceUniqueObj(DiffSource source) {
+
+            return source.getEmployeeId();
+        }
+
+        @Override
+        protected DiffStage newInstanceOfStage() {
+
+            return new DiffStage();
+        }
+
+        @Override
+        protected DiffSource newInstanceOfSource() {
+
+            return new DiffSource();
+        }
+
+        @Override
+        protected DiffLog newInstanceOfLog() {
+
+            return new DiffLog();
+        }
+
+        @Override
+        protected DiffTarget newInstanceOfTarget() {
+
+            return new DiffTarget();
+        }
+
+        @Override
+        protected int getDiffParallelism() {
+
+            return diffParallelism;
+        }
+
+        @Override
+        protected JpaRepository getStageJpaRepository() {
+
+            return null;
+        }
+
+        @Override
+        protected JpaRepository getTargetJpaRepository() {
+
+            return null;
+        }
+
+        @Override
+        protected JpaRepository getLogJpaRepository() {
+
+            return null;
+        }
+
+        @Override
+        protected SyncPersistenceStrategy<DiffStage> getStagePersistenceStrategy() {
+
+            return new NoopPersistenceStrategy<>();
+        }
+
+        @Override
+        protected SyncPersistenceStrategy<DiffTarget> getTargetPersistenceStrategy() {
+
+            return new NoopPersistenceStrategy<>();
+        }
+
+        @Override
+        protected SyncPersistenceStrategy<DiffLog> getLogPersistenceStrategy() {
+
+            return new NoopPersistenceStrategy<>();
+        }
+
+        @Override
+        protected SyncMetricsListener getMetricsListener() {
+
+            return SyncMetricsListener.NOOP;
+        }
+    }
+
+    static final class NoopPersistenceStrategy<E> implements SyncPersistenceStrategy<E> {
+
+        @Override
+        public void insert(List<E> entities) {
+        }
+
+        @Override
+        public void update(List<E> entities) {
+        }
+
+        @Override
+        public void delete(List<E> entities) {
+        }
+    }
+
+    @Data
+    public static class DiffSource {
+
+        private long employeeId;
+        private String employeeName;
+        private String campCode;
+        private float otHours;
+        private Float dailyAverageOt;
+        private Date workDate;
+
+        static DiffSource sample(int i) {
+
+            DiffSource source = new DiffSource();
+            source.setEmployeeId(1000000L + i);
+            source.setEmployeeName("employee " + i);
+            source.setCampCode("CAMP" + (i % 40));
+            source.setOtHours(i % 60 + 0.5f);
+            source.setDailyAverageOt((i % 60 + 0.5f) / 22);
+            source.setWorkDate(new Date(1538319600000L));
+            return source;
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class DiffStage extends StageBase {
+
+        private long employeeId;
+        private String employeeName;
+        private String campCode;
+        private float otHours;
+        private Float dailyAverageOt;
+        private Date workDate;
+
+        static DiffStage copyOf(DiffSource source) {
+
+            DiffStage stage = new DiffStage();
+            stage.setEmployeeId(source.getEmployeeId());
+            stage.setEmployeeName(source.getEmployeeName());
+            stage.setCampCode(source.getCampCode());
+            stage.setOtHours(ValueNormalizer.roundFloat(source.getOtHours()));
+            stage.setDailyAverageOt(ValueNormalizer.roundFloat(source.getDailyAverageOt()));
+            stage.setWorkDate(source.getWorkDate());
+            return stage;
+        }
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class DiffLog extends LogBase {
+
+        private long employeeId;
+        private String employeeName;
+        private String campCode;
+        private float otHours;
+        private Float dailyAverageOt;
+        private Date workDate;
+    }
+
+    @Data
+    public static class DiffTarget {
+
+        private long employeeId;
+        private String employeeName;
+        private String campCode;
+        private float otHours;
+        private Float dailyAverageOt;
+        private Date workDate;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tool.dataSync.bench;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * Flat stage-like entity used by the persistence benchmarks.
+ */
+@Data
+@Entity
+@Table(name = "bench_stage_row")
+public class BenchStageRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "employeeId")
+    private long employeeId;
+
+    @Column(name = "employeeName")
+    private String employeeName;
+
+    @Column(name = "campCode")
+    private String campCode;
+
+    @Column(name = "otHours")
+    private float otHours;
+
+    @Column(name = "workDate")
+    @Temporal(TemporalType.DATE)
+    private Date workDate;
+
+    @Column(name = "createdAt")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    @Column(name = "updatedAt")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+
+}
@@ -0,0 +1,6 @@
+package com.tool.dataSync.bench;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BenchStageRowRepository extends JpaRepository<BenchStageRow, Long> {
+}
@@ -0,0 +1,75 @@
+package com.tool.excel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV export of {@link ExcelMergeMetaDataBenchmark.OtRow}s into a discarding stream, plain and gzipped, to compare
+ * with rendering the same rows into a workbook.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvExportBenchmark {
+
+    @Param({"100000", "500000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private List<ExcelMergeMetaDataBenchmark.OtRow> datas;
+    private CsvExporter<ExcelMergeMetaDataBenchmark.OtRow> exporter;
+
+    @Setup
+    public void setUp() {
+
+        datas = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            datas.add(ExcelMergeMetaDataBenchmark.OtRow.sample(i));
+        }
+        List<ExcelColumn<ExcelMergeMetaDataBenchmark.OtRow>> columns = Arrays.asList(
+                ExcelColumn.of("regionName", "region", ExcelMergeMetaDataBenchmark.OtRow::getRegionName),
+                ExcelColumn.of("areaName", "area", ExcelMergeMetaDataBenchmark.OtRow::getAreaName),
+                ExcelColumn.of("campName", "camp", ExcelMergeMetaDataBenchmark.OtRow::getCampName),
+                ExcelColumn.of("employeeName", "employee", ExcelMergeMetaDataBenchmark.OtRow::getEmployeeName),
+                ExcelColumn.of("dailyAverageOt", "dailyAverageOt", ExcelMergeMetaDataBenchmark.OtRow::getDailyAverageOt));
+        exporter = new CsvExporter<>(columns, Locale.ENGLISH, gzip);
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+
+        return exporter.write(JobDataSource.of(datas), Collections.emptySet(), new OutputStream() {
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.tool.excel;
+
+import lombok.Data;
+import org.apache.poi.hssf.usermodel.HSSFRow;
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Merge metadata generation of {@link DefaultExcelCellMergeMetaDataGenerator} over region/area/camp columns, alone
+ * and together with rendering the body cells and merged regions of an HSSF sheet the way {@code ExcelExporter}
+ * does. Rows stay below the 65536 row limit of HSSF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelMergeMetaDataBenchmark {
+
+    @Param({"1000", "10000", "60000"})
+    private int rows;
+
+    private List<OtRow> datas;
+    private DefaultExcelCellMergeMetaDataGenerator<OtRow> generator;
+
+    @Setup
+    public void setUp() {
+
+        datas = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            datas.add(OtRow.sample(i));
+        }
+        Map<Integer, Function<OtRow, String>> mergeColumns = new HashMap<>();
+        mergeColumns.put(0, OtRow::getRegionName);
+        mergeColumns.put(1, OtRow::getAreaName);
+        mergeColumns.put(2, OtRow::getCampName);
+        generator = new DefaultExcelCellMergeMetaDataGenerator<>(mergeColumns);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Pair<Integer, Integer>>> generate() {
+
+        return generator.generate(datas);
+    }
+
+    @Benchmark
+    public HSSFWorkbook renderSheet() {
+
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        HSSFSheet sheet = workbook.createSheet("CDM");
+        for (int i = 0; i < datas.size(); i++) {
+            OtRow data = datas.get(i);
+            HSSFRow row = sheet.createRow(i);
+            row.createCell(0).setCellValue(data.getRegionName());
+            row.createCell(1).setCellValue(data.getAreaName());
+            row.createCell(2).setCellValue(data.getCampName());
+            row.createCell(3).setCellValue(data.getEmployeeName());
+            row.createCell(4).setCellValue(data.getDailyAverageOt());
+        }
+        generator.generate(datas).forEach((column, merges) -> merges.forEach(x ->
+                sheet.addMergedRegion(new CellRangeAddress(x.getFirst(), x.getSecond(), column, column))));
+        return workbook;
+    }
+
+    @Data
+    public static class OtRow {
+
+        private String regionName;
+        private String areaName;
+        private String campName;
+        private String employeeName;
+        private float dailyAverageOt;
+
+        static OtRow sample(int i) {
+
+            OtRow row = new OtRow();
+            row.setRegionName("region " + i / 20000);
+            row.setAreaName("area " + i / 2000);
+            row.setCampName("camp " + i / 200);
+            row.setEmployeeName("employee " + i);
+            row.setDailyAverageOt(i % 200);
+            return row;
+        }
+    }
+}
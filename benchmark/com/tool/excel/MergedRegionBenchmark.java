@@ -0,0 +1,95 @@
+package com.tool.excel;
+
+import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.RegionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding merged regions one by one through {@code Sheet.addMergedRegion} against {@link MergedRegionWriter} in bulk,
+ * and drawing their borders through {@link RegionUtil} against {@link MergedRegionWriter#setRegionBorders}. Regions
+ * span 2 rows each and are spread over columns to stay below the 65536 row limit of HSSF.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergedRegionBenchmark {
+
+    private static final int ROWS = 60000;
+
+    @Param({"10000", "100000"})
+    private int regions;
+
+    private List<CellRangeAddress> ranges;
+
+    @Setup
+    public void setUp() {
+
+        int perColumn = ROWS / 2;
+        ranges = new ArrayList<>(regions);
+        for (int i = 0; i < regions; i++) {
+            int firstRow = i % perColumn * 2;
+            int column = i / perColumn;
+            ranges.add(new CellRangeAddress(firstRow, firstRow + 1, column, column));
+        }
+    }
+
+    @Benchmark
+    public HSSFWorkbook addOneByOne() {
+
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        HSSFSheet sheet = workbook.createSheet("CDM");
+        ranges.forEach(sheet::addMergedRegion);
+        return workbook;
+    }
+
+    @Benchmark
+    public HSSFWorkbook addInBulk() {
+
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        new MergedRegionWriter(workbook).addMergedRegions(workbook.createSheet("CDM"), ranges);
+        return workbook;
+    }
+
+    @Benchmark
+    public HSSFWorkbook bordersByRegionUtil() {
+
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        HSSFSheet sheet = workbook.createSheet("CDM");
+        for (CellRangeAddress range : ranges) {
+            RegionUtil.setBorderTop(BorderStyle.THIN, range, sheet);
+            RegionUtil.setBorderBottom(BorderStyle.THIN, range, sheet);
+            RegionUtil.setBorderLeft(BorderStyle.THIN, range, sheet);
+            RegionUtil.setBorderRight(BorderStyle.THIN, range, sheet);
+        }
+        return workbook;
+    }
+
+    @Benchmark
+    public HSSFWorkbook bordersInBulk() {
+
+        HSSFWorkbook workbook = new HSSFWorkbook();
+        HSSFSheet sheet = workbook.createSheet("CDM");
+        new MergedRegionWriter(workbook).setRegionBorders(sheet, ranges, BorderStyle.THIN, (short) 8);
+        return workbook;
+    }
+}
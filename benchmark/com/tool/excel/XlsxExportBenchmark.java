@@ -0,0 +1,166 @@
+package com.tool.excel;
+
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming xlsx export of three job sheets into discarding streams the way the {@code ExcelExporter.exportXlsx}
+ * variants draw them: in one workbook without and with an executor preparing the sheets and resolving the row
+ * windows, and in one workbook per sheet written in parallel like {@code exportXlsxPerJob}. {@code resolveOnly} does
+ * only the part the executor takes off the writing thread in {@code withExecutor}, the merged regions and the row
+ * windows of all sheets; the rest of {@code sequential} is the POI writing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XlsxExportBenchmark {
+
+    private static final List<String> SHEETS = Arrays.asList("CDM", "CL", "CS");
+
+    @Param({"100000", "300000"})
+    private int rows;
+
+    private List<ExcelMergeMetaDataBenchmark.OtRow> datas;
+    private List<ExcelColumn<ExcelMergeMetaDataBenchmark.OtRow>> columns;
+    private ColorBands colorBands;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        datas = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            datas.add(ExcelMergeMetaDataBenchmark.OtRow.sample(i));
+        }
+        columns = Arrays.asList(
+                ExcelColumn.<ExcelMergeMetaDataBenchmark.OtRow>of("regionName", "region", ExcelMergeMetaDataBenchmark.OtRow::getRegionName).merged(),
+                ExcelColumn.<ExcelMergeMetaDataBenchmark.OtRow>of("areaName", "area", ExcelMergeMetaDataBenchmark.OtRow::getAreaName).merged(),
+                ExcelColumn.<ExcelMergeMetaDataBenchmark.OtRow>of("campName", "camp", ExcelMergeMetaDataBenchmark.OtRow::getCampName).merged(),
+                ExcelColumn.of("employeeName", "employee", ExcelMergeMetaDataBenchmark.OtRow::getEmployeeName),
+                ExcelColumn.<ExcelMergeMetaDataBenchmark.OtRow>ofNumber("dailyAverageOt", "dailyAverageOt",
+                        ExcelMergeMetaDataBenchmark.OtRow::getDailyAverageOt).colored());
+        colorBands = ColorBands.otherwise(IndexedColors.GREEN.getIndex())
+                .band(120, 144, IndexedColors.YELLOW.getIndex())
+                .band(144, 24 * 60, IndexedColors.RED.getIndex());
+        executor = Executors.newFixedThreadPool(SHEETS.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void sequential() throws IOException {
+
+        try (StreamingExcelExporter<ExcelMergeMetaDataBenchmark.OtRow> exporter = this.newExporter()) {
+            for (String sheet : SHEETS) {
+                exporter.drawSheet(sheet, datas, Collections.emptySet(), true);
+            }
+            exporter.write(discard());
+        }
+    }
+
+    @Benchmark
+    public void withExecutor() throws IOException {
+
+        try (StreamingExcelExporter<ExcelMergeMetaDataBenchmark.OtRow> exporter = this.newExporter()) {
+            List<CompletableFuture<StreamingExcelExporter.SheetModel<ExcelMergeMetaDataBenchmark.OtRow>>> sheets = new ArrayList<>();
+            for (String sheet : SHEETS) {
+                sheets.add(exporter.prepareSheetAsync(sheet, datas, Collections.emptySet(), true, executor));
+            }
+            for (CompletableFuture<StreamingExcelExporter.SheetModel<ExcelMergeMetaDataBenchmark.OtRow>> sheet : sheets) {
+                exporter.drawSheet(sheet.join(), executor);
+            }
+            exporter.write(discard());
+        }
+    }
+
+    @Benchmark
+    public void perSheetWorkbooks() {
+
+        List<CompletableFuture<Void>> workbooks = new ArrayList<>();
+        for (String sheet : SHEETS) {
+            workbooks.add(CompletableFuture.runAsync(() -> {
+                try (StreamingExcelExporter<ExcelMergeMetaDataBenchmark.OtRow> exporter = this.newExporter()) {
+                    exporter.drawSheet(sheet, datas, Collections.emptySet(), true);
+                    exporter.write(discard());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(workbooks.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    @Benchmark
+    public int resolveOnly() {
+
+        int regions = 0;
+        RowRenderer<ExcelMergeMetaDataBenchmark.OtRow> rowRenderer = new RowRenderer<>(columns, colorBands, null, null, x -> null);
+        RowRenderer.RowWindow window = rowRenderer.newWindow(StreamingExcelExporter.PREPARED_WINDOW_ROWS);
+        for (int sheet = 0; sheet < SHEETS.size(); sheet++) {
+            MergeRegionEngine<ExcelMergeMetaDataBenchmark.OtRow> mergeRegionEngine = new MergeRegionEngine<>(Arrays.asList(
+                    ExcelMergeMetaDataBenchmark.OtRow::getRegionName, ExcelMergeMetaDataBenchmark.OtRow::getAreaName,
+                    ExcelMergeMetaDataBenchmark.OtRow::getCampName));
+            datas.forEach(mergeRegionEngine::add);
+            regions += mergeRegionEngine.finish().size(2);
+            for (int from = 0; from < datas.size(); from += StreamingExcelExporter.PREPARED_WINDOW_ROWS) {
+                rowRenderer.resolve(datas, from, Math.min(datas.size(), from + StreamingExcelExporter.PREPARED_WINDOW_ROWS), window);
+            }
+        }
+        return regions;
+    }
+
+    private StreamingExcelExporter<ExcelMergeMetaDataBenchmark.OtRow> newExporter() {
+
+        List<StreamingExcelExporter.Legend> legends = Arrays.asList(
+                new StreamingExcelExporter.Legend(IndexedColors.GREEN.getIndex(), "workingTime.Daily_average_ot_hours_less_than_two"),
+                new StreamingExcelExporter.Legend(IndexedColors.YELLOW.getIndex(), "workingTime.Daily_average_ot_hours_between_two_and_twoHalf"),
+                new StreamingExcelExporter.Legend(IndexedColors.RED.getIndex(), "workingTime.Daily_average_ot_hours_more_than_twoHalf"));
+        return new StreamingExcelExporter<>(columns, Locale.ENGLISH, legends, colorBands);
+    }
+
+    private static OutputStream discard() {
+
+        return new OutputStream() {
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+    }
+}
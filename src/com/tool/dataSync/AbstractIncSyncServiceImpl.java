@@ -1,15 +1,26 @@
 package com.tool.dataSync;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.collections.CollectionUtils;
-import org.springframework.beans.BeanUtils;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.text.DecimalFormat;
+import javax.persistence.EntityManager;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -18,9 +29,19 @@ import java.util.stream.Collectors;
 @Slf4j
 public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase, Target, Log extends LogBase> {
 
-    private static final DecimalFormat FLOAT_ROUND = new DecimalFormat("#.######");
+    private static final BeanCopier DEFAULT_BEAN_COPIER = new GeneratedBeanCopier();
 
-    protected final ThreadLocal<String> tables = new ThreadLocal<>();
+    private static final SyncMetricsListener DEFAULT_METRICS_LISTENER = new MicrometerSyncMetricsListener(Metrics.globalRegistry);
+
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private static final int PARALLEL_DIFF_THRESHOLD = 10000;
+
+    private volatile PropertyComparisonPlan comparisonPlan;
+
+    private volatile DirtyPropertyTracker dirtyPropertyTracker;
+
+    private ForkJoinPool diffPool;
 
     @Transactional(value = "lmsHrTransactionManager", rollbackFor = Exception.class)
     public void syncData(List<Source> sourceDatas, List<Stage> stageDatas) {
@@ -28,127 +49,859 @@ public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase
         if (CollectionUtils.isEmpty(sourceDatas) && CollectionUtils.isEmpty(stageDatas)) {
             return;
         }
-        tables.set(this.getClass().getSimpleName());
-        Pair<List<Stage>, List<Stage>> persistedStageDatas = this.syncToStage(sourceDatas, stageDatas);
-        this.syncToTarget(persistedStageDatas.getFirst(), persistedStageDatas.getSecond());
+        SyncStatistics statistics = new SyncStatistics(this.getTableName());
+        Pair<List<Stage>, List<Stage>> persistedStageDatas = this.syncToStage(statistics, sourceDatas, stageDatas);
+        this.syncToTarget(statistics, persistedStageDatas.getFirst(), persistedStageDatas.getSecond());
+        statistics.report(this.getMetricsListener());
+    }
+
+    /**
+     * Dry run of {@link #syncData(List, List)}: the same matching, but nothing is written and every change is handed
+     * to {@code changeSet}, e.g. a {@link ChangeSetWriter}. An update carries the stage row before the change and the
+     * properties that change, computed on a copy, so the stage rows are left untouched apart from their action.
+     * The change set is applied later by {@link #replayChangeSet(Iterator)}, on this or another database. The
+     * figures of the dry run go to {@link #getMetricsListener()} like those of a sync.
+     */
+    public void diffData(List<Source> sourceDatas, List<Stage> stageDatas, Consumer<ChangeRecord> changeSet) {
+
+        SyncStatistics statistics = new SyncStatistics(this.getTableName());
+        long startNanos = System.nanoTime();
+        StageIndex<Source, Stage> stageIndex = this.createStageIndex(stageDatas == null ? new ArrayList<>() : stageDatas);
+        statistics.recordPhase(SyncPhase.KEY_MAP_BUILD, startNanos);
+        startNanos = System.nanoTime();
+        if (sourceDatas != null) {
+            for (Source source : sourceDatas) {
+                Stage stage = stageIndex.findUnmatched(source, this::compareSameKey);
+                if (stage == null) {
+                    Stage insert = this.constructInsert4Stage(source);
+                    stageIndex.addInsert(source, insert);
+                    statistics.countRows(SyncAction.INSERT, 1);
+                    changeSet.accept(ChangeRecord.of(SyncAction.INSERT, insert));
+                } else if (this.markMatch(statistics, source, stage)) {
+                    Stage update = this.newInstanceOfStage();
+                    this.getBeanCopier().copy(stage, update);
+                    this.convertSourceToStage(source, update);
+                    this.updateDigest(update);
+                    statistics.countRows(SyncAction.UPDATE, 1);
+                    changeSet.accept(ChangeRecord.update(stage, update));
+                }
+            }
+        }
+        for (Stage stage : stageIndex.getRows()) {
+            if (SyncAction.DELETE.getCode() == stage.getAction()) {
+                statistics.countRows(SyncAction.DELETE, 1);
+                changeSet.accept(ChangeRecord.of(SyncAction.DELETE, stage));
+            }
+        }
+        statistics.recordPhase(SyncPhase.DIFF, startNanos);
+        statistics.report(this.getMetricsListener());
+    }
+
+    /**
+     * Applies a change set computed by {@link #diffData(List, List, Consumer)} to stage, log and target exactly like
+     * {@link #syncData(List, List)} would have, flushing every {@link #getStreamingFlushSize()} changes. The change
+     * set is not compared against the current stage rows, it has to be replayed onto the state it was computed from.
+     * Like the other streaming modes it needs a bounded persistence context, see {@link #getEntityManager()}.
+     */
+    @Transactional(value = "lmsHrTransactionManager", rollbackFor = Exception.class)
+    @SuppressWarnings("unchecked")
+    public void replayChangeSet(Iterator<ChangeRecord> changeSet) {
+
+        this.checkBoundedPersistence();
+        SyncStatistics statistics = new SyncStatistics(this.getTableName());
+        ChangeLogSink<Log> changeLogSink = this.getChangeLogSink();
+        Class<Stage> stageClass = (Class<Stage>) this.newInstanceOfStage().getClass();
+        List<Stage> changes = new ArrayList<>();
+        while (changeSet.hasNext()) {
+            ChangeRecord record = changeSet.next();
+            Stage stage = record.toStage(stageClass);
+            if (SyncAction.UPDATE == record.getAction()) {
+                changeLogSink.append(this.convertToLogEntity(stage));
+                record.applyChanges(stage);
+                stage.setDirtyProperties(record.getChanges() == null ? null : Sets.newHashSet(record.getChanges().fieldNames()));
+            }
+            changes.add(stage);
+            if (changes.size() >= this.getStreamingFlushSize()) {
+                this.flushChanges(statistics, changes, changeLogSink, 0, 0);
+            }
+        }
+        this.flushChanges(statistics, changes, changeLogSink, 0, 0);
+        statistics.report(this.getMetricsListener());
+    }
+
+    /**
+     * Streaming variant of {@link #syncData(List, List)}: both iterators must be sorted by unique key in the order of
+     * {@link #getUniqueObjComparator()}, only one key group is held at a time and changes are flushed every
+     * {@link #getStreamingFlushSize()} changed rows. Stage rows should be detached (e.g. read through a stateless
+     * cursor) so the persistence context does not grow with the table; the rows written are detached after every
+     * flush, which needs {@link #getEntityManager()} unless no default JPA persistence strategy is used.
+     */
+    @Transactional(value = "lmsHrTransactionManager", rollbackFor = Exception.class)
+    public void syncSortedData(Iterator<Source> sourceDatas, Iterator<Stage> stageDatas) {
+
+        this.checkBoundedPersistence();
+        SyncStatistics statistics = new SyncStatistics(this.getTableName());
+        SortedMergeJoin<Source, Stage> mergeJoin = new SortedMergeJoin<>(sourceDatas, stageDatas,
+                this::composeSourceUniqueObj, this::composeStageUniqueObj, this.getUniqueObjComparator());
+        ChangeLogSink<Log> changeLogSink = this.getChangeLogSink();
+        List<Stage> changes = new ArrayList<>();
+        long sourceSize = 0;
+        long liveSize = 0;
+        while (mergeJoin.hasNext()) {
+            SortedMergeJoin.KeyGroup<Source, Stage> keyGroup = mergeJoin.next();
+            sourceSize += keyGroup.getSources().size();
+            liveSize += this.matchKeyGroup(statistics, keyGroup, changes, changeLogSink);
+            if (changes.size() >= this.getStreamingFlushSize()) {
+                this.flushChanges(statistics, changes, changeLogSink, liveSize, sourceSize);
+            }
+        }
+        this.flushChanges(statistics, changes, changeLogSink, liveSize, sourceSize);
+        statistics.report(this.getMetricsListener());
+    }
+
+    /**
+     * Snapshot of the stage rows for {@link #syncDataWithSnapshot(Iterator, StageSnapshotStore)}, kept in memory
+     * mapped files in {@code directory}. Needs a {@link LongKeyCodec} from {@link #getUniqueKeyCodec()}; the caller
+     * appends the stage rows (e.g. from a stateless cursor) and closes the snapshot, which deletes its files.
+     */
+    @SuppressWarnings("unchecked")
+    public StageSnapshotStore<Source, Stage> createStageSnapshot(Path directory, long expectedRows) {
+
+        UniqueKeyCodec<Source, Stage> uniqueKeyCodec = this.getUniqueKeyCodec();
+        if (!(uniqueKeyCodec instanceof LongKeyCodec)) {
+            throw new UnsupportedOperationException("stage snapshot needs a LongKeyCodec, which is not provided by " + this.getClass().getSimpleName());
+        }
+        PropertyComparisonPlan plan = this.getComparisonPlan();
+        ToLongFunction<Stage> digestFunction = plan.isDigestable() ? x -> RowDigest.ofStage(plan, x) : null;
+        return new StageSnapshotStore<>(directory, (LongKeyCodec<Source, Stage>) uniqueKeyCodec, this.newInstanceOfStage().getClass(),
+                this::newInstanceOfStage, digestFunction, expectedRows);
+    }
+
+    /**
+     * Variant of {@link #syncData(List, List)} for stage tables larger than the heap: stage rows are looked up and
+     * marked in {@code stageSnapshot}, rows whose digest matches the source are kept without being materialized, and
+     * only changed rows become entities. Changes are flushed every {@link #getStreamingFlushSize()} rows and then
+     * detached, see {@link #getEntityManager()}. Marks are not rolled back with the transaction, so a snapshot serves
+     * a single run.
+     */
+    @Transactional(value = "lmsHrTransactionManager", rollbackFor = Exception.class)
+    public void syncDataWithSnapshot(Iterator<Source> sourceDatas, StageSnapshotStore<Source, Stage> stageSnapshot) {
+
+        this.checkBoundedPersistence();
+        SyncStatistics statistics = new SyncStatistics(this.getTableName());
+        ChangeLogSink<Log> changeLogSink = this.getChangeLogSink();
+        Consumer<Log> logs = changeLogSink::append;
+        List<Stage> changes = new ArrayList<>();
+        long sourceSize = 0;
+        long liveSize = 0;
+        long startNanos = System.nanoTime();
+        while (sourceDatas.hasNext()) {
+            Source source = sourceDatas.next();
+            sourceSize++;
+            long address = stageSnapshot.findUnmatched(source, this::compareSameKey);
+            Stage change = null;
+            if (address < 0) {
+                change = this.constructInsert4Stage(source);
+            } else if (this.matchSnapshotDigest(source, stageSnapshot, address)) {
+                stageSnapshot.mark(address, SyncAction.DEFAULT.getCode());
+                statistics.countRows(SyncAction.DEFAULT, 1);
+                liveSize++;
+            } else {
+                Stage stage = stageSnapshot.materialize(address);
+                this.checkMatch(statistics, source, logs, stage);
+                stageSnapshot.mark(address, stage.getAction());
+                if (SyncAction.UPDATE.getCode() == stage.getAction()) {
+                    change = stage;
+                } else if (SyncAction.DEFAULT.getCode() == stage.getAction()) {
+                    liveSize++;
+                }
+            }
+            if (change != null) {
+                changes.add(change);
+                if (SyncAction.DELETE.getCode() != change.getAction()) {
+                    liveSize++;
+                }
+            }
+            if (changes.size() >= this.getStreamingFlushSize()) {
+                statistics.recordPhase(SyncPhase.DIFF, startNanos);
+                this.flushChanges(statistics, changes, changeLogSink, liveSize, sourceSize);
+                startNanos = System.nanoTime();
+            }
+        }
+        // unmatched stage rows are deleted, they leave the live count as it is
+        long matchedSize = sourceSize;
+        long matchedLiveSize = liveSize;
+        stageSnapshot.forEachUnmatched(x -> {
+            changes.add(x);
+            if (changes.size() >= this.getStreamingFlushSize()) {
+                this.flushChanges(statistics, changes, changeLogSink, matchedLiveSize, matchedSize);
+            }
+        });
+        statistics.recordPhase(SyncPhase.DIFF, startNanos);
+        this.flushChanges(statistics, changes, changeLogSink, liveSize, sourceSize);
+        statistics.report(this.getMetricsListener());
+    }
+
+    private boolean matchSnapshotDigest(Source source, StageSnapshotStore<Source, Stage> stageSnapshot, long address) {
+
+        PropertyComparisonPlan plan = this.getComparisonPlan();
+        try {
+            return plan.isDigestable() && stageSnapshot.matchesDigest(address, RowDigest.ofSource(plan, source));
+        } catch (Exception e) {
+            log.error("error when digest source, table:{}", this.getTableName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Chunked variant of {@link #syncSortedData(Iterator, Iterator)} for very large tables. Rows are read through
+     * {@link #loadSourceChunk(Object, int)} and {@link #loadStageChunk(Object, int)} in key ranges of about
+     * {@link #getChunkSize()} rows; every range is written in its own transaction together with a
+     * {@link SyncCheckpoint}, so an interrupted run continues after the last committed unique object.
+     */
+    public void syncDataInChunks() {
+
+        String table = this.getTableName();
+        SyncStatistics statistics = new SyncStatistics(table);
+        SyncCheckpointStore checkpointStore = this.getCheckpointStore();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.getTransactionManager());
+        SyncCheckpoint checkpoint = checkpointStore.load(table);
+        if (checkpoint == null) {
+            checkpoint = new SyncCheckpoint();
+            checkpoint.setTable(table);
+        } else {
+            log.info("resume sync of table:{} after {}", table, checkpoint.getLastUniqueObj());
+        }
+        Comparator<Object> comparator = this.getUniqueObjComparator();
+        int limit = this.getChunkSize();
+        boolean lastChunk = false;
+        while (!lastChunk) {
+            Object afterUniqueObj = checkpoint.getLastUniqueObj();
+            List<Source> sourceDatas = this.loadSourceChunk(afterUniqueObj, limit);
+            List<Stage> stageDatas = this.loadStageChunk(afterUniqueObj, limit);
+            Object endUniqueObj = null;
+            if (sourceDatas.size() >= limit) {
+                endUniqueObj = this.composeSourceUniqueObj(sourceDatas.get(sourceDatas.size() - 1));
+            }
+            if (stageDatas.size() >= limit) {
+                Object lastStageUniqueObj = this.composeStageUniqueObj(stageDatas.get(stageDatas.size() - 1));
+                if (endUniqueObj == null || comparator.compare(lastStageUniqueObj, endUniqueObj) < 0) {
+                    endUniqueObj = lastStageUniqueObj;
+                }
+            }
+            lastChunk = endUniqueObj == null;
+            Iterator<Source> sources = sourceDatas.iterator();
+            Iterator<Stage> stages = stageDatas.iterator();
+            if (!lastChunk) {
+                // a full page may end in the middle of the rows of its last key, that key is left to the next chunk
+                Object end = endUniqueObj;
+                sources = Iterators.filter(sources, x -> comparator.compare(this.composeSourceUniqueObj(x), end) < 0);
+                stages = Iterators.filter(stages, x -> comparator.compare(this.composeStageUniqueObj(x), end) < 0);
+            }
+            SortedMergeJoin<Source, Stage> mergeJoin = new SortedMergeJoin<>(sources, stages,
+                    this::composeSourceUniqueObj, this::composeStageUniqueObj, comparator);
+            if (!lastChunk && !mergeJoin.hasNext()) {
+                limit = limit * 2;
+                continue;
+            }
+            SyncCheckpoint current = checkpoint;
+            transactionTemplate.execute(status -> {
+                this.syncChunk(statistics, mergeJoin, current);
+                checkpointStore.save(current);
+                return null;
+            });
+            limit = this.getChunkSize();
+        }
+        this.validateSyncResult(checkpoint.getLiveSize(), checkpoint.getSourceSize());
+        transactionTemplate.execute(status -> {
+            checkpointStore.clear(table);
+            return null;
+        });
+        statistics.report(this.getMetricsListener());
+    }
+
+    /**
+     * Incremental variant of {@link #syncData(List, List)}: only the unique objects of source rows changed since the
+     * stored {@link SyncWatermark} (minus {@link #getWatermarkOverlapMillis()}) are diffed, all their source rows
+     * against all their stage rows, so unchanged rows sharing a unique object with a changed one are kept. Deleted source rows are picked up from {@link #loadSourceDeletedUniqueObjsSince(Date)} when the
+     * source keeps tombstones, and in any case by a full sync every {@link #getFullReconciliationIntervalMillis()}.
+     */
+    @Transactional(value = "lmsHrTransactionManager", rollbackFor = Exception.class)
+    public void syncIncrementally() {
+
+        String table = this.getTableName();
+        SyncWatermarkStore watermarkStore = this.getWatermarkStore();
+        SyncWatermark watermark = watermarkStore.load(table);
+        Date runStartedAt = new Date();
+        Date newWatermark;
+        if (watermark == null || watermark.getWatermark() == null || watermark.getLastFullSyncAt() == null
+                || runStartedAt.getTime() - watermark.getLastFullSyncAt().getTime() >= this.getFullReconciliationIntervalMillis()) {
+            log.info("full reconciliation of table:{}", table);
+            List<Source> sourceDatas = this.loadAllSource();
+            this.syncData(sourceDatas, this.loadAllStage());
+            if (watermark == null) {
+                watermark = new SyncWatermark();
+                watermark.setTable(table);
+            }
+            watermark.setLastFullSyncAt(runStartedAt);
+            newWatermark = this.maxSourceVersion(sourceDatas, null);
+        } else {
+            Date since = new Date(watermark.getWatermark().getTime() - this.getWatermarkOverlapMillis());
+            List<Source> sourceDatas = this.loadSourceChangedSince(since);
+            Set<Object> uniqueObjs = new LinkedHashSet<>();
+            sourceDatas.forEach(x -> uniqueObjs.add(this.composeSourceUniqueObj(x)));
+            uniqueObjs.addAll(this.loadSourceDeletedUniqueObjsSince(since));
+            log.info("incremental sync of table:{} since {}, {} changed source rows, {} unique objects", table, since,
+                    sourceDatas.size(), uniqueObjs.size());
+            if (!uniqueObjs.isEmpty()) {
+                this.syncData(this.loadSourceByUniqueObjs(uniqueObjs), this.loadStageByUniqueObjs(uniqueObjs));
+            }
+            newWatermark = this.maxSourceVersion(sourceDatas, watermark.getWatermark());
+        }
+        watermark.setWatermark(newWatermark == null ? runStartedAt : newWatermark);
+        watermarkStore.save(watermark);
+    }
+
+    private Date maxSourceVersion(List<Source> sourceDatas, Date watermark) {
+
+        Date max = watermark;
+        boolean versioned = false;
+        for (Source source : sourceDatas) {
+            Date version = this.getSourceVersion(source);
+            if (version != null) {
+                versioned = true;
+                if (max == null || version.after(max)) {
+                    max = version;
+                }
+            }
+        }
+        return versioned ? max : null;
+    }
+
+    private void syncChunk(SyncStatistics statistics, SortedMergeJoin<Source, Stage> mergeJoin, SyncCheckpoint checkpoint) {
+
+        ChangeLogSink<Log> changeLogSink = this.getChangeLogSink();
+        List<Stage> changes = new ArrayList<>();
+        long sourceSize = 0;
+        long liveSize = 0;
+        Object lastUniqueObj = checkpoint.getLastUniqueObj();
+        while (mergeJoin.hasNext()) {
+            SortedMergeJoin.KeyGroup<Source, Stage> keyGroup = mergeJoin.next();
+            sourceSize += keyGroup.getSources().size();
+            liveSize += this.matchKeyGroup(statistics, keyGroup, changes, changeLogSink);
+            lastUniqueObj = keyGroup.getKey();
+        }
+        this.flushChanges(statistics, changes, changeLogSink, liveSize, sourceSize);
+        checkpoint.setLastUniqueObj(lastUniqueObj);
+        checkpoint.setSourceSize(checkpoint.getSourceSize() + sourceSize);
+        checkpoint.setLiveSize(checkpoint.getLiveSize() + liveSize);
+    }
+
+    private long matchKeyGroup(SyncStatistics statistics, SortedMergeJoin.KeyGroup<Source, Stage> keyGroup, List<Stage> changes,
+                               ChangeLogSink<Log> changeLogSink) {
+
+        long startNanos = System.nanoTime();
+        List<Stage> stagesByUniqueObj = keyGroup.getStages();
+        keyGroup.getSources().forEach(x -> this.matchSource(statistics, x, stagesByUniqueObj, changeLogSink::append));
+        statistics.recordPhase(SyncPhase.DIFF, startNanos);
+        long liveSize = 0;
+        for (Stage stage : stagesByUniqueObj) {
+            if (SyncAction.DELETE.getCode() != stage.getAction()) {
+                liveSize++;
+            }
+            if (SyncAction.DEFAULT.getCode() != stage.getAction()) {
+                changes.add(stage);
+            }
+        }
+        return liveSize;
+    }
+
+    private void flushChanges(SyncStatistics statistics, List<Stage> changes, ChangeLogSink<Log> changeLogSink, long liveSize, long sourceSize) {
+
+        this.validateSyncResult(liveSize, sourceSize);
+        if (CollectionUtils.isEmpty(changes)) {
+            return;
+        }
+        Pair<List<Stage>, List<Stage>> persistedStageDatas = this.persistToStage(statistics, changes, changeLogSink);
+        this.syncToTarget(statistics, persistedStageDatas.getFirst(), persistedStageDatas.getSecond());
+        changes.clear();
+        EntityManager entityManager = this.getEntityManager();
+        if (entityManager != null) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * The streaming modes write batch after batch in one transaction; entities saved through a
+     * {@link JpaRepositoryPersistenceStrategy} stay managed until they are cleared, so with such a strategy the
+     * persistence context must be given to clear it after every batch.
+     */
+    private void checkBoundedPersistence() {
+
+        if (this.getEntityManager() == null && (this.getStagePersistenceStrategy() instanceof JpaRepositoryPersistenceStrategy
+                || this.getTargetPersistenceStrategy() instanceof JpaRepositoryPersistenceStrategy
+                || this.getLogPersistenceStrategy() instanceof JpaRepositoryPersistenceStrategy)) {
+            throw new UnsupportedOperationException("streaming sync with JpaRepository persistence needs getEntityManager(), "
+                    + "which is not implemented by " + this.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Name the runs of this service are logged, reported and checkpointed under; defaults to the simple class name.
+     * It is derived per call rather than kept in thread state, so it also holds on diff and orchestrator threads.
+     */
+    protected String getTableName() {
+
+        return this.getClass().getSimpleName();
+    }
+
+    /**
+     * Order of the unique objects used by {@link #syncSortedData(Iterator, Iterator)}; it has to match the order the
+     * source and stage queries are sorted by. Defaults to the natural order of the unique objects.
+     */
+    @SuppressWarnings("unchecked")
+    protected Comparator<Object> getUniqueObjComparator() {
+
+        return Comparator.nullsFirst((x, y) -> ((Comparable<Object>) x).compareTo(y));
+    }
+
+    protected int getStreamingFlushSize() {
+
+        return 1000;
+    }
+
+    protected int getChunkSize() {
+
+        return 5000;
+    }
+
+    /**
+     * Up to {@code limit} source rows with a unique object after {@code afterUniqueObj} (all rows when it is null),
+     * sorted by {@link #getUniqueObjComparator()}. Needed by {@link #syncDataInChunks()} only.
+     */
+    protected List<Source> loadSourceChunk(Object afterUniqueObj, int limit) {
+
+        throw new UnsupportedOperationException("loadSourceChunk is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * Stage counterpart of {@link #loadSourceChunk(Object, int)}.
+     */
+    protected List<Stage> loadStageChunk(Object afterUniqueObj, int limit) {
+
+        throw new UnsupportedOperationException("loadStageChunk is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    protected List<Source> loadAllSource() {
+
+        throw new UnsupportedOperationException("loadAllSource is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    protected List<Stage> loadAllStage() {
+
+        throw new UnsupportedOperationException("loadAllStage is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * Source rows created or updated at or after {@code since}, e.g. by an updatedAt or version column. They only
+     * name the unique objects to sync and advance the watermark, the rows diffed come from
+     * {@link #loadSourceByUniqueObjs(Collection)}.
+     */
+    protected List<Source> loadSourceChangedSince(Date since) {
+
+        throw new UnsupportedOperationException("loadSourceChangedSince is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * Unique objects of source rows deleted at or after {@code since}, for sources that keep tombstones. Without
+     * tombstones deletions are only applied by the periodic full reconciliation.
+     */
+    protected Collection<Object> loadSourceDeletedUniqueObjsSince(Date since) {
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * All live source rows of the given unique objects, changed or not; the incremental sync diffs them against
+     * {@link #loadStageByUniqueObjs(Collection)}, so a unique object may hold several rows.
+     */
+    protected List<Source> loadSourceByUniqueObjs(Collection<Object> uniqueObjs) {
+
+        throw new UnsupportedOperationException("loadSourceByUniqueObjs is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * All stage rows of the given unique objects, the incremental sync deletes the ones without a live source row.
+     */
+    protected List<Stage> loadStageByUniqueObjs(Collection<Object> uniqueObjs) {
+
+        throw new UnsupportedOperationException("loadStageByUniqueObjs is not implemented by " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * Version (e.g. updatedAt) of a source row; when available the watermark advances to the highest version seen
+     * instead of the start time of the run, which keeps it independent of the clock of this host.
+     */
+    protected Date getSourceVersion(Source source) {
+
+        return null;
+    }
+
+    protected long getWatermarkOverlapMillis() {
+
+        return 60 * 1000L;
+    }
+
+    protected long getFullReconciliationIntervalMillis() {
+
+        return 24 * 60 * 60 * 1000L;
+    }
+
+    protected SyncWatermarkStore getWatermarkStore() {
+
+        throw new UnsupportedOperationException("no watermark store is configured for " + this.getClass().getSimpleName());
+    }
+
+    protected SyncCheckpointStore getCheckpointStore() {
+
+        throw new UnsupportedOperationException("no checkpoint store is configured for " + this.getClass().getSimpleName());
+    }
+
+    protected PlatformTransactionManager getTransactionManager() {
+
+        throw new UnsupportedOperationException("no transaction manager is configured for " + this.getClass().getSimpleName());
     }
 
-    private Pair<List<Stage>, List<Stage>> syncToStage(List<Source> sourceDatas, List<Stage> stageDatas) {
+    private Pair<List<Stage>, List<Stage>> syncToStage(SyncStatistics statistics, List<Source> sourceDatas, List<Stage> stageDatas) {
 
         if (stageDatas == null) {
             stageDatas = new ArrayList<>();
         }
-        List<Log> logs = new ArrayList<>();
+        ChangeLogSink<Log> changeLogSink = this.getChangeLogSink();
         List<Stage> syncResult;
         if (CollectionUtils.isEmpty(sourceDatas)) {
             syncResult = stageDatas;
         } else {
-            Map<Object, List<Stage>> stageUniqueMap = this.convertToUniqueObjMap(stageDatas);
-            Set<String> properties = new HashSet<>();
-            sourceDatas.forEach(x -> {
-                this.syncToStageOneByOne(properties, x, stageUniqueMap, logs);
-            });
-            syncResult = stageUniqueMap.values().stream().flatMap(List::stream).collect(Collectors.toList());
+            if (this.getDiffParallelism() > 1 && sourceDatas.size() + stageDatas.size() >= PARALLEL_DIFF_THRESHOLD) {
+                long startNanos = System.nanoTime();
+                syncResult = this.syncToStageInParallel(statistics, sourceDatas, stageDatas, changeLogSink);
+                statistics.recordPhase(SyncPhase.DIFF, startNanos);
+            } else {
+                long startNanos = System.nanoTime();
+                StageIndex<Source, Stage> stageIndex = this.createStageIndex(stageDatas);
+                statistics.recordPhase(SyncPhase.KEY_MAP_BUILD, startNanos);
+                startNanos = System.nanoTime();
+                sourceDatas.forEach(x -> {
+                    this.syncToStageOneByOne(statistics, x, stageIndex, changeLogSink::append);
+                });
+                syncResult = stageIndex.getRows();
+                statistics.recordPhase(SyncPhase.DIFF, startNanos);
+            }
             this.validateSyncResult(syncResult, sourceDatas.size());
         }
-        return this.persistToStage(syncResult, logs);
+        return this.persistToStage(statistics, syncResult, changeLogSink);
+    }
+
+    /**
+     * Rows are hash partitioned by unique object, so all rows of one key land in the same partition and every
+     * partition is diffed on its own exactly like the sequential path does. Key maps are built inside the partitions,
+     * so the whole parallel section is reported as {@link SyncPhase#DIFF}. Partitions put the insert and log row of
+     * every source row at the position of the source row, so the result is merged back in source order: the stage
+     * rows in their given order followed by the inserts, and the log rows appended to the {@link ChangeLogSink} from
+     * the calling thread, both in the order of the source rows that caused them.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Stage> syncToStageInParallel(SyncStatistics statistics, List<Source> sourceDatas, List<Stage> stageDatas,
+                                              ChangeLogSink<Log> changeLogSink) {
+
+        int parallelism = this.getDiffParallelism();
+        int partitionSize = parallelism * PARTITIONS_PER_THREAD;
+        int[][] sourcePartitions = this.partition(sourceDatas, partitionSize, this::composeSourceUniqueObj);
+        int[][] stagePartitions = this.partition(stageDatas, partitionSize, this::composeStageUniqueObj);
+        Object[] inserts = new Object[sourceDatas.size()];
+        Object[] logs = new Object[sourceDatas.size()];
+        this.getComparisonPlan();
+        Executor executor = this.getDiffExecutor();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[partitionSize];
+        for (int i = 0; i < partitionSize; i++) {
+            int[] sourceIndexes = sourcePartitions[i];
+            List<Stage> stages = new ArrayList<>(stagePartitions[i].length);
+            for (int stageIndex : stagePartitions[i]) {
+                stages.add(stageDatas.get(stageIndex));
+            }
+            tasks[i] = CompletableFuture.runAsync(() -> this.syncPartition(statistics, sourceDatas, sourceIndexes, stages, inserts, logs), executor);
+        }
+        try {
+            CompletableFuture.allOf(tasks).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        List<Stage> syncResult = new ArrayList<>(stageDatas.size() + sourceDatas.size());
+        syncResult.addAll(stageDatas);
+        for (int i = 0; i < inserts.length; i++) {
+            if (inserts[i] != null) {
+                syncResult.add((Stage) inserts[i]);
+            }
+            if (logs[i] != null) {
+                changeLogSink.append((Log) logs[i]);
+            }
+        }
+        return syncResult;
+    }
+
+    /**
+     * Diffs the source rows at {@code sourceIndexes} against {@code stageDatas}; a source row changes at most one
+     * stage row, so it leaves at most one insert and one log row, stored at its own index.
+     */
+    private void syncPartition(SyncStatistics statistics, List<Source> sourceDatas, int[] sourceIndexes, List<Stage> stageDatas,
+                               Object[] inserts, Object[] logs) {
+
+        StageIndex<Source, Stage> stageIndex = this.createStageIndex(stageDatas);
+        for (int index : sourceIndexes) {
+            Source source = sourceDatas.get(index);
+            Stage insert = this.checkMatch(statistics, source, x -> logs[index] = x, stageIndex.findUnmatched(source, this::compareSameKey));
+            if (insert != null) {
+                stageIndex.addInsert(source, insert);
+                inserts[index] = insert;
+            }
+        }
+    }
+
+    /**
+     * Indexes of {@code datas} per partition, in the order of {@code datas}.
+     */
+    private <T> int[][] partition(List<T> datas, int partitionSize, Function<T, Object> uniqueObjFunction) {
+
+        int[] partitionOf = new int[datas.size()];
+        int[] sizes = new int[partitionSize];
+        for (int i = 0; i < partitionOf.length; i++) {
+            int hash = Objects.hashCode(uniqueObjFunction.apply(datas.get(i)));
+            partitionOf[i] = ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % partitionSize;
+            sizes[partitionOf[i]]++;
+        }
+        int[][] partitions = new int[partitionSize][];
+        for (int i = 0; i < partitionSize; i++) {
+            partitions[i] = new int[sizes[i]];
+            sizes[i] = 0;
+        }
+        for (int i = 0; i < partitionOf.length; i++) {
+            partitions[partitionOf[i]][sizes[partitionOf[i]]++] = i;
+        }
+        return partitions;
+    }
+
+    /**
+     * Number of threads {@link #syncData(List, List)} diffs with; 1 (the default) keeps the sequential diff.
+     * With more than 1 thread, {@link #composeSourceUniqueObj(Object)}, {@link #composeStageUniqueObj(StageBase)},
+     * {@link #compareSameKey(Object, StageBase)} and the conversion hooks are called concurrently.
+     */
+    protected int getDiffParallelism() {
+
+        return 1;
+    }
+
+    /**
+     * Executor the partitions of a parallel diff run on. The default is one pool of {@link #getDiffParallelism()}
+     * daemon threads per service, created on first use and kept for later calls; override to share one executor
+     * between services.
+     */
+    protected synchronized Executor getDiffExecutor() {
+
+        if (diffPool == null) {
+            diffPool = new ForkJoinPool(this.getDiffParallelism(), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(getClass().getSimpleName() + "-diff-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return diffPool;
     }
 
     private void validateSyncResult(List<Stage> syncResult, int sourceSize) {
 
         int deleteSize = (int) syncResult.stream().filter(x -> SyncAction.DELETE.getCode() == x.getAction()).count();
-        int liveSize = syncResult.size() - deleteSize;
+        this.validateSyncResult(syncResult.size() - deleteSize, sourceSize);
+    }
+
+    private void validateSyncResult(long liveSize, long sourceSize) {
+
         if (sourceSize != liveSize) {
             throw new RuntimeException("match is failed");
         }
     }
 
-    private Pair<List<Stage>, List<Stage>> persistToStage(List<Stage> syncResult, List<Log> logs) {
+    private Pair<List<Stage>, List<Stage>> persistToStage(SyncStatistics statistics, List<Stage> syncResult, ChangeLogSink<Log> changeLogSink) {
 
         final List<Stage> insertAndUpdate = new ArrayList<>();
+        final List<Stage> insert = new ArrayList<>();
+        final List<Stage> update = new ArrayList<>();
         final List<Stage> delete = new ArrayList<>();
         syncResult.forEach(x -> {
             if (SyncAction.DELETE.getCode() == x.getAction()) {
-                log.info("delete:{}", x);
+                if (log.isDebugEnabled()) {
+                    log.debug("delete:{}", x);
+                }
                 delete.add(x);
-                logs.add(this.convertToLogEntity(x));
-            } else if (SyncAction.INSERT.getCode() == x.getAction() || SyncAction.UPDATE.getCode() == x.getAction()) {
+                changeLogSink.append(this.convertToLogEntity(x));
+            } else if (SyncAction.INSERT.getCode() == x.getAction()) {
+                insertAndUpdate.add(x);
+                insert.add(x);
+            } else if (SyncAction.UPDATE.getCode() == x.getAction()) {
                 insertAndUpdate.add(x);
+                update.add(x);
             }
         });
-        if (CollectionUtils.isNotEmpty(insertAndUpdate)) {
-            this.getStageJpaRepository().save(insertAndUpdate);
+        statistics.countRows(SyncAction.INSERT, insert.size());
+        statistics.countRows(SyncAction.UPDATE, update.size());
+        statistics.countRows(SyncAction.DELETE, delete.size());
+        SyncPersistenceStrategy<Stage> stagePersistenceStrategy = this.getStagePersistenceStrategy();
+        long startNanos = System.nanoTime();
+        if (CollectionUtils.isNotEmpty(insert)) {
+            stagePersistenceStrategy.insert(insert);
+        }
+        if (CollectionUtils.isNotEmpty(update)) {
+            stagePersistenceStrategy.updateDirty(update, update.stream().map(StageBase::getDirtyProperties).collect(Collectors.toList()));
         }
-        logs.addAll(insertAndUpdate.stream().filter(x -> SyncAction.INSERT.getCode() == x.getAction()).map(x -> this.convertToLogEntity(x)).collect(Collectors.toList()));
-        this.logChange(logs);
+        statistics.recordPhase(SyncPhase.STAGE_PERSIST, startNanos);
+        insert.forEach(x -> changeLogSink.append(this.convertToLogEntity(x)));
+        startNanos = System.nanoTime();
+        changeLogSink.flush();
+        statistics.recordPhase(SyncPhase.LOG_PERSIST, startNanos);
+        startNanos = System.nanoTime();
         if (CollectionUtils.isNotEmpty(delete)) {
-            this.getStageJpaRepository().deleteInBatch(delete);
+            stagePersistenceStrategy.delete(delete);
         }
+        statistics.recordPhase(SyncPhase.STAGE_PERSIST, startNanos);
         return new Pair<>(insertAndUpdate, delete);
     }
 
-    private Map<Object, List<Stage>> convertToUniqueObjMap(List<Stage> stageDatas) {
+    private StageIndex<Source, Stage> createStageIndex(List<Stage> stageDatas) {
 
-        Map<Object, List<Stage>> uniqueObjMap = new HashMap<>();
-        stageDatas.forEach(x -> {
-            Object uniqueObj = this.composeStageUniqueObj(x);
-            if (uniqueObjMap.containsKey(uniqueObj)) {
-                uniqueObjMap.get(uniqueObj).add(x);
-                if (log.isDebugEnabled()) {
-                    log.debug("repeat key:{}", uniqueObjMap.get(uniqueObj));
-                }
-            } else {
-                uniqueObjMap.put(uniqueObj, Lists.newArrayList(x));
-            }
-        });
-        return uniqueObjMap;
+        UniqueKeyCodec<Source, Stage> uniqueKeyCodec = this.getUniqueKeyCodec();
+        if (uniqueKeyCodec != null) {
+            return new CompactStageIndex<>(stageDatas, uniqueKeyCodec);
+        }
+        return new HashStageIndex<>(stageDatas, this::composeSourceUniqueObj, this::composeStageUniqueObj);
+    }
+
+    /**
+     * Typed keys for the diff of {@link #syncData(List, List)}; the default null indexes stage rows by
+     * {@link #composeStageUniqueObj(StageBase)} in a map. With a {@link LongKeyCodec} or {@link PackedKeyCodec} the
+     * stage rows go into a {@link CompactStageIndex}, which takes a fraction of the memory per row.
+     */
+    protected UniqueKeyCodec<Source, Stage> getUniqueKeyCodec() {
+
+        return null;
     }
 
     protected abstract Object composeStageUniqueObj(Stage x);
 
-    private void syncToStageOneByOne(Set<String> properties, Source source, Map<Object, List<Stage>> stageUniqueMap, List<Log> logs) {
+    private void syncToStageOneByOne(SyncStatistics statistics, Source source, StageIndex<Source, Stage> stageIndex, Consumer<Log> logs) {
 
-        Object sourceUniqueObj = this.composeSourceUniqueObj(source);
-        if (stageUniqueMap.containsKey(sourceUniqueObj)) {
-            List<Stage> stagesByUniqueObj = stageUniqueMap.get(sourceUniqueObj);
-            Optional<Stage> firstMatch = stagesByUniqueObj.stream().filter(x -> (SyncAction.DELETE.getCode() == x.getAction() && this.compareSameKey(source, x)))
-                    .findFirst();
-            if (!firstMatch.isPresent()) {
-                firstMatch = stagesByUniqueObj.stream().filter(x -> (SyncAction.DELETE.getCode() == x.getAction()))
-                        .findFirst();
+        Stage insert = this.checkMatch(statistics, source, logs, stageIndex.findUnmatched(source, this::compareSameKey));
+        if (insert != null) {
+            stageIndex.addInsert(source, insert);
+        }
+    }
+
+    private void matchSource(SyncStatistics statistics, Source source, List<Stage> stagesByUniqueObj, Consumer<Log> logs) {
+
+        Stage insert = this.checkMatch(statistics, source, logs, HashStageIndex.findUnmatched(stagesByUniqueObj, source, this::compareSameKey));
+        if (insert != null) {
+            stagesByUniqueObj.add(insert);
+        }
+    }
+
+    /**
+     * Updates or keeps {@code firstMatch}; without a match the stage row to insert is returned.
+     */
+    private Stage checkMatch(SyncStatistics statistics, Source source, Consumer<Log> logs, Stage firstMatch) {
+
+        if (firstMatch == null) {
+            return constructInsert4Stage(source);
+        }
+        if (this.markMatch(statistics, source, firstMatch)) {
+            if (log.isDebugEnabled()) {
+                log.debug("update: {}", firstMatch);
             }
-            checkMatch(properties, source, logs, stagesByUniqueObj, firstMatch);
-        } else {
-            Stage stage = constructInsert4Stage(source);
-            stageUniqueMap.put(sourceUniqueObj, Lists.newArrayList(stage));
+            logs.accept(this.convertToLogEntity(firstMatch));
+            DirtyPropertyTracker tracker = this.getDirtyPropertyTracker();
+            Object[] before = tracker.snapshot(firstMatch);
+            this.convertSourceToStage(source, firstMatch);
+            this.updateDigest(firstMatch);
+            firstMatch.setDirtyProperties(tracker.changedProperties(firstMatch, before));
         }
+        return null;
     }
 
-    private void checkMatch(Set<String> properties, Source source, List<Log> logs, List<Stage> stagesByUniqueObj, Optional<Stage> firstMatch) {
+    /**
+     * The match decision of both the sync and the dry run: marks {@code stage} as {@link SyncAction#UPDATE} when the
+     * data of {@code source} differ, else as {@link SyncAction#DEFAULT} and counts it as unchanged. Returns whether the
+     * stage row has to be updated.
+     */
+    private boolean markMatch(SyncStatistics statistics, Source source, Stage stage) {
 
-        if (firstMatch.isPresent()) {
-            if (this.compareData(properties, source, firstMatch.get())) {
-                if (log.isDebugEnabled()) {
-                    log.debug("update: {}", firstMatch.get());
+        if (!this.matchDigest(source, stage) && this.compareData(statistics, source, stage)) {
+            stage.setAction(SyncAction.UPDATE.getCode());
+            return true;
+        }
+        stage.setAction(SyncAction.DEFAULT.getCode());
+        statistics.countRows(SyncAction.DEFAULT, 1);
+        return false;
+    }
+
+    /**
+     * True when the stage row carries a {@link DigestStageBase#getRowDigest() digest} equal to the digest of the
+     * source row, in which case the property by property comparison is skipped.
+     */
+    private boolean matchDigest(Source source, Stage stage) {
+
+        if (!(stage instanceof DigestStageBase) || ((DigestStageBase) stage).getRowDigest() == null) {
+            return false;
+        }
+        PropertyComparisonPlan plan = this.getComparisonPlan();
+        try {
+            return plan.isDigestable() && RowDigest.ofSource(plan, source) == ((DigestStageBase) stage).getRowDigest();
+        } catch (Exception e) {
+            log.error("error when digest source, table:{}", this.getTableName(), e);
+            return false;
+        }
+    }
+
+    private void updateDigest(Stage stage) {
+
+        if (stage instanceof DigestStageBase) {
+            PropertyComparisonPlan plan = this.getComparisonPlan();
+            Long rowDigest = null;
+            if (plan.isDigestable()) {
+                try {
+                    rowDigest = RowDigest.ofStage(plan, stage);
+                } catch (Exception e) {
+                    log.error("error when digest stage, table:{}", this.getTableName(), e);
                 }
-                firstMatch.get().setAction(SyncAction.UPDATE.getCode());
-                logs.add(this.convertToLogEntity(firstMatch.get()));
-                this.convertSourceToStage(source, firstMatch.get());
-            } else {
-                firstMatch.get().setAction(SyncAction.DEFAULT.getCode());
             }
-        } else {
-            Stage stage = constructInsert4Stage(source);
-            stagesByUniqueObj.add(stage);
+            ((DigestStageBase) stage).setRowDigest(rowDigest);
         }
     }
 
-    private void filterProperties(Set<String> properties) {
+    private DirtyPropertyTracker getDirtyPropertyTracker() {
 
-        if (CollectionUtils.isEmpty(properties)) {
-            properties.addAll(Arrays.stream(this.newInstanceOfSource().getClass().getDeclaredFields()).
-                    filter(x -> !x.isAnnotationPresent(IgnoreCompare.class)).map(x -> x.getName()).collect(Collectors.toSet()));
+        if (dirtyPropertyTracker == null) {
+            dirtyPropertyTracker = new DirtyPropertyTracker(this.newInstanceOfStage().getClass());
         }
+        return dirtyPropertyTracker;
+    }
+
+    private PropertyComparisonPlan getComparisonPlan() {
+
+        if (comparisonPlan == null) {
+            comparisonPlan = PropertyComparisonPlan.of(this.newInstanceOfSource().getClass(), this.newInstanceOfStage().getClass());
+        }
+        return comparisonPlan;
     }
 
     protected abstract Object composeSourceUniqueObj(Source source);
@@ -160,6 +913,7 @@ public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase
         }
         Stage stage = this.newInstanceOfStage();
         this.convertSourceToStage(source, stage);
+        this.updateDigest(stage);
         stage.setAction(SyncAction.INSERT.getCode());
         return stage;
     }
@@ -167,7 +921,7 @@ public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase
     protected Log convertToLogEntity(Stage stage) {
 
         Log log = this.newInstanceOfLog();
-        BeanUtils.copyProperties(stage, log);
+        this.getBeanCopier().copy(stage, log);
         return log;
     }
 
@@ -177,77 +931,91 @@ public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase
 
     protected abstract Log newInstanceOfLog();
 
-    private void convertSourceToStage(Source source, Stage stage) {
+    protected void convertSourceToStage(Source source, Stage stage) {
+
+        this.getBeanCopier().copy(source, stage);
+    }
+
+    protected void convertStageToTarget(Stage stage, Target target) {
+
+        this.getBeanCopier().copy(stage, target);
+    }
+
+    /**
+     * Copier behind the default source to stage, stage to log and stage to target conversions; each conversion can
+     * also be overridden on its own.
+     */
+    protected BeanCopier getBeanCopier() {
 
-        BeanUtils.copyProperties(source, stage);
+        return DEFAULT_BEAN_COPIER;
     }
 
-    private boolean compareData(Set<String> properties, Object source, Object stage) {
+    private boolean compareData(SyncStatistics statistics, Object source, Object stage) {
 
         try {
-            this.filterProperties(properties);
-            return properties.stream().filter(x -> {
-                return compareField(source, stage, x);
-            }).findAny().isPresent();
+            for (PropertyComparisonPlan.PropertyComparator comparator : this.getComparisonPlan().getComparators()) {
+                if (this.compareField(statistics, source, stage, comparator)) {
+                    return true;
+                }
+            }
+            return false;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return false;
         }
     }
 
-    private boolean compareField(Object source, Object stage, String propertyName) {
+    private boolean compareField(SyncStatistics statistics, Object source, Object stage, PropertyComparisonPlan.PropertyComparator comparator) {
 
         try {
-            Object sourceValue = PropertyUtils.getProperty(source, propertyName);
-            Object stageValue = PropertyUtils.getProperty(stage, propertyName);
-            boolean compareResult = this.compareValue(sourceValue, stageValue);
+            boolean compareResult = comparator.differs(source, stage);
             if (compareResult) {
-                log.info("value is not match for table:{}/property:{} = source:{}/stage:{}", tables.get(), propertyName, sourceValue, stageValue);
+                statistics.recordMismatch(comparator, source, stage);
             }
             return compareResult;
         } catch (Exception e) {
-            log.error("error when compare field, table:{}/property name:{}", tables.get(), propertyName, e);
+            log.error("error when compare field, table:{}/property name:{}", this.getTableName(), comparator.getName(), e);
             return true;
         }
     }
 
-    private boolean compareValue(Object source, Object target) {
-
-        if (source == target) {
-            return false;
-        } else if (source != null && target != null) {
-            source = this.roundValue(source);
-            if (source.equals(target)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private Object roundValue(Object source) {
-
-        if (source instanceof Float) {
-            source = Float.valueOf(FLOAT_ROUND.format(source));
-        }
-        return source;
-    }
-
-    private void syncToTarget(List<Stage> insertAndUpdate, List<Stage> delete) {
+    private void syncToTarget(SyncStatistics statistics, List<Stage> insertAndUpdate, List<Stage> delete) {
 
+        long startNanos = System.nanoTime();
         Pair<List<Target>, List<Target>> targetEntity = this.convertToTargetEntity(insertAndUpdate, delete);
+        SyncPersistenceStrategy<Target> targetPersistenceStrategy = this.getTargetPersistenceStrategy();
         if (CollectionUtils.isNotEmpty(insertAndUpdate)) {
-            this.getTargetJpaRepository().save(targetEntity.getFirst());
+            List<Target> insert = new ArrayList<>();
+            List<Target> update = new ArrayList<>();
+            List<Set<String>> dirtyProperties = new ArrayList<>();
+            for (int i = 0; i < insertAndUpdate.size(); i++) {
+                if (SyncAction.INSERT.getCode() == insertAndUpdate.get(i).getAction()) {
+                    insert.add(targetEntity.getFirst().get(i));
+                } else {
+                    update.add(targetEntity.getFirst().get(i));
+                    dirtyProperties.add(this.getTargetDirtyProperties(insertAndUpdate.get(i)));
+                }
+            }
+            if (CollectionUtils.isNotEmpty(insert)) {
+                targetPersistenceStrategy.insert(insert);
+            }
+            if (CollectionUtils.isNotEmpty(update)) {
+                targetPersistenceStrategy.updateDirty(update, dirtyProperties);
+            }
         }
         if (CollectionUtils.isNotEmpty(delete)) {
-            this.getTargetJpaRepository().deleteInBatch(targetEntity.getSecond());
+            targetPersistenceStrategy.delete(targetEntity.getSecond());
         }
+        statistics.recordPhase(SyncPhase.TARGET_PERSIST, startNanos);
     }
 
-    private void logChange(List<Log> logs) {
+    /**
+     * Target properties changed by the update of {@code stage}, null for all of them. Defaults to the dirty stage
+     * properties, which holds as long as {@link #convertStageToTarget(StageBase, Object)} copies properties by name.
+     */
+    protected Set<String> getTargetDirtyProperties(Stage stage) {
 
-        if (CollectionUtils.isNotEmpty(logs)) {
-            this.getLogJpaRepository().save(logs);
-        }
+        return stage.getDirtyProperties();
     }
 
     protected abstract JpaRepository getStageJpaRepository();
@@ -256,6 +1024,69 @@ public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase
 
     protected abstract JpaRepository getLogJpaRepository();
 
+    /**
+     * Persistence context of the stage, target and log repositories; the streaming modes flush and clear it after
+     * every batch, which detaches every entity of the context. Needed by those modes while any of the default
+     * {@link JpaRepositoryPersistenceStrategy JpaRepository strategies} is used; defaults to none.
+     */
+    protected EntityManager getEntityManager() {
+
+        return null;
+    }
+
+    /**
+     * Writes stage rows; defaults to {@link #getStageJpaRepository()}. Override with e.g. a
+     * {@link JdbcBatchPersistenceStrategy} for large tables.
+     */
+    protected SyncPersistenceStrategy<Stage> getStagePersistenceStrategy() {
+
+        return jpaRepositoryStrategy(this.getStageJpaRepository());
+    }
+
+    protected SyncPersistenceStrategy<Target> getTargetPersistenceStrategy() {
+
+        return jpaRepositoryStrategy(this.getTargetJpaRepository());
+    }
+
+    protected SyncPersistenceStrategy<Log> getLogPersistenceStrategy() {
+
+        return jpaRepositoryStrategy(this.getLogJpaRepository());
+    }
+
+    /**
+     * The repository getters are raw, the repository of each side stores that side's entity.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> SyncPersistenceStrategy<E> jpaRepositoryStrategy(JpaRepository<?, ?> repository) {
+
+        return new JpaRepositoryPersistenceStrategy<>((JpaRepository<E, ?>) repository);
+    }
+
+    /**
+     * Receives the log rows of every run; defaults to writing them through {@link #getLogPersistenceStrategy()} inside
+     * the sync transaction, every {@link #getChangeLogBatchSize()} rows and at the end of every sync step. Return a
+     * shared {@link AfterCommitChangeLogSink} or a started {@link WriteAheadLogChangeLogSink} to take the log write
+     * off the sync transaction.
+     */
+    protected ChangeLogSink<Log> getChangeLogSink() {
+
+        return new InTransactionChangeLogSink<>(this.getLogPersistenceStrategy(), this.getChangeLogBatchSize());
+    }
+
+    protected int getChangeLogBatchSize() {
+
+        return 1000;
+    }
+
+    /**
+     * Receives the phase timings, row counts and mismatch counts of every run; defaults to Micrometer's global
+     * registry, which Spring Boot's actuator registry is added to.
+     */
+    protected SyncMetricsListener getMetricsListener() {
+
+        return DEFAULT_METRICS_LISTENER;
+    }
+
     Pair<List<Target>, List<Target>> convertToTargetEntity(List<Stage> insertAndUpdateList, List<Stage> deleteList) {
 
         List<Target> first = new ArrayList<>();
@@ -272,7 +1103,7 @@ public abstract class AbstractIncSyncServiceImpl<Source, Stage extends StageBase
     private void constructTarget(List<Target> targets, Stage stage) {
 
         Target target = this.newInstanceOfTarget();
-        BeanUtils.copyProperties(stage, target);
+        this.convertStageToTarget(stage, target);
 //		this.setTargetPk(stage, target);
         targets.add(target);
     }
@@ -0,0 +1,70 @@
+package com.tool.dataSync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the log rows of a transaction and writes them in batches of {@code batchSize}, each in a new transaction,
+ * once the sync transaction committed. The sync transaction no longer waits for the log write and a rolled back sync
+ * leaves no log rows, but a crash right after the commit loses the log rows of that transaction.
+ * <p>
+ * {@code batchSize} only bounds the write transactions: all log rows of the sync transaction are held in memory until
+ * it commits, so the buffer is unbounded. Use {@link WriteAheadLogChangeLogSink} when a transaction may change more
+ * rows than fit on the heap.
+ */
+@Slf4j
+public class AfterCommitChangeLogSink<Log> extends TransactionBoundChangeLogSink<Log, List<Log>> {
+
+    private final SyncPersistenceStrategy<Log> persistenceStrategy;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public AfterCommitChangeLogSink(SyncPersistenceStrategy<Log> persistenceStrategy, PlatformTransactionManager transactionManager,
+                                    int batchSize) {
+
+        this.persistenceStrategy = persistenceStrategy;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected List<Log> newBuffer() {
+
+        return new ArrayList<>();
+    }
+
+    @Override
+    protected void add(List<Log> logs, Log log) {
+
+        logs.add(log);
+    }
+
+    @Override
+    protected void commit(List<Log> logs) {
+
+        try {
+            for (int i = 0; i < logs.size(); i += batchSize) {
+                List<Log> batch = logs.subList(i, Math.min(i + batchSize, logs.size()));
+                transactionTemplate.execute(status -> {
+                    persistenceStrategy.insert(batch);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            log.error("error when write {} change logs after commit", logs.size(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    protected void discard(List<Log> logs) {
+
+        logs.clear();
+    }
+}
@@ -0,0 +1,12 @@
+package com.tool.dataSync;
+
+/**
+ * Copies the matching properties of one bean onto another. Used by {@link AbstractIncSyncServiceImpl} for the
+ * source to stage, stage to log and stage to target conversions.
+ */
+@FunctionalInterface
+public interface BeanCopier {
+
+    void copy(Object source, Object target);
+
+}
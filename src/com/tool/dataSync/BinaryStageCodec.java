@@ -0,0 +1,269 @@
+package com.tool.dataSync;
+
+import org.springframework.util.SerializationUtils;
+
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary form of a stage row for {@link StageSnapshotStore}: every readable and writable property except the
+ * transient {@code action} and {@code dirtyProperties}, in name order, written by type without names or tags. Objects
+ * are preceded by a null flag; Dates are stored as millis (and nanos for Timestamps), BigDecimals as unscaled bytes
+ * and scale, enums by name. Other property types fall back to java serialization.
+ */
+final class BinaryStageCodec<Stage> {
+
+    private static final int BOOLEAN = 0;
+    private static final int BYTE = 1;
+    private static final int SHORT = 2;
+    private static final int CHAR = 3;
+    private static final int INT = 4;
+    private static final int LONG = 5;
+    private static final int FLOAT = 6;
+    private static final int DOUBLE = 7;
+    private static final int STRING = 8;
+    private static final int DATE = 9;
+    private static final int TIMESTAMP = 10;
+    private static final int SQL_DATE = 11;
+    private static final int BIG_DECIMAL = 12;
+    private static final int ENUM = 13;
+    private static final int SERIALIZED = 14;
+
+    private final Supplier<Stage> factory;
+    private final PropertyCodec[] properties;
+
+    BinaryStageCodec(Class<?> stageClass, Supplier<Stage> factory) {
+
+        this.factory = factory;
+        List<PropertyCodec> properties = new ArrayList<>();
+        Map<String, PropertyDescriptor> descriptors = new TreeMap<>(PropertyAccessors.getPropertyDescriptors(stageClass));
+        descriptors.forEach((name, descriptor) -> {
+            if (descriptor.getReadMethod() != null && descriptor.getWriteMethod() != null
+                    && !"action".equals(name) && !"dirtyProperties".equals(name)) {
+                properties.add(new PropertyCodec(descriptor));
+            }
+        });
+        this.properties = properties.toArray(new PropertyCodec[0]);
+    }
+
+    /**
+     * Writes {@code stage} at the position of {@code buffer}; returns null when the buffer is too small, the caller
+     * then retries with a larger one.
+     */
+    ByteBuffer write(Stage stage, ByteBuffer buffer) {
+
+        int start = buffer.position();
+        try {
+            for (PropertyCodec property : properties) {
+                property.write(stage, buffer);
+            }
+            return buffer;
+        } catch (java.nio.BufferOverflowException e) {
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    Stage read(ByteBuffer buffer) {
+
+        Stage stage = factory.get();
+        for (PropertyCodec property : properties) {
+            property.read(stage, buffer);
+        }
+        return stage;
+    }
+
+    private static final class PropertyCodec {
+
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+        private final Class<?> type;
+        private final int kind;
+        private final boolean primitive;
+
+        PropertyCodec(PropertyDescriptor descriptor) {
+
+            this.getter = PropertyAccessors.getter(descriptor.getReadMethod());
+            this.setter = PropertyAccessors.setter(descriptor.getWriteMethod());
+            this.type = descriptor.getPropertyType();
+            this.primitive = type.isPrimitive();
+            this.kind = kindOf(type);
+        }
+
+        void write(Object stage, ByteBuffer buffer) {
+
+            Object value = getter.apply(stage);
+            if (!primitive) {
+                buffer.put((byte) (value == null ? 0 : 1));
+                if (value == null) {
+                    return;
+                }
+            }
+            switch (kind) {
+                case BOOLEAN:
+                    buffer.put((byte) ((Boolean) value ? 1 : 0));
+                    break;
+                case BYTE:
+                    buffer.put((Byte) value);
+                    break;
+                case SHORT:
+                    buffer.putShort((Short) value);
+                    break;
+                case CHAR:
+                    buffer.putChar((Character) value);
+                    break;
+                case INT:
+                    buffer.putInt((Integer) value);
+                    break;
+                case LONG:
+                    buffer.putLong((Long) value);
+                    break;
+                case FLOAT:
+                    buffer.putFloat((Float) value);
+                    break;
+                case DOUBLE:
+                    buffer.putDouble((Double) value);
+                    break;
+                case STRING:
+                    putBytes(buffer, ((String) value).getBytes(StandardCharsets.UTF_8));
+                    break;
+                case DATE:
+                case SQL_DATE:
+                    buffer.putLong(((Date) value).getTime());
+                    break;
+                case TIMESTAMP:
+                    buffer.putLong(((Timestamp) value).getTime());
+                    buffer.putInt(((Timestamp) value).getNanos());
+                    break;
+                case BIG_DECIMAL:
+                    putBytes(buffer, ((BigDecimal) value).unscaledValue().toByteArray());
+                    buffer.putInt(((BigDecimal) value).scale());
+                    break;
+                case ENUM:
+                    putBytes(buffer, ((Enum<?>) value).name().getBytes(StandardCharsets.UTF_8));
+                    break;
+                default:
+                    putBytes(buffer, SerializationUtils.serialize(value));
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void read(Object stage, ByteBuffer buffer) {
+
+            if (!primitive && buffer.get() == 0) {
+                setter.accept(stage, null);
+                return;
+            }
+            Object value;
+            switch (kind) {
+                case BOOLEAN:
+                    value = buffer.get() != 0;
+                    break;
+                case BYTE:
+                    value = buffer.get();
+                    break;
+                case SHORT:
+                    value = buffer.getShort();
+                    break;
+                case CHAR:
+                    value = buffer.getChar();
+                    break;
+                case INT:
+                    value = buffer.getInt();
+                    break;
+                case LONG:
+                    value = buffer.getLong();
+                    break;
+                case FLOAT:
+                    value = buffer.getFloat();
+                    break;
+                case DOUBLE:
+                    value = buffer.getDouble();
+                    break;
+                case STRING:
+                    value = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                    break;
+                case DATE:
+                    value = new Date(buffer.getLong());
+                    break;
+                case SQL_DATE:
+                    value = new java.sql.Date(buffer.getLong());
+                    break;
+                case TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(buffer.getLong());
+                    timestamp.setNanos(buffer.getInt());
+                    value = timestamp;
+                    break;
+                case BIG_DECIMAL:
+                    BigInteger unscaled = new BigInteger(getBytes(buffer));
+                    value = new BigDecimal(unscaled, buffer.getInt());
+                    break;
+                case ENUM:
+                    value = Enum.valueOf((Class<Enum>) type, new String(getBytes(buffer), StandardCharsets.UTF_8));
+                    break;
+                default:
+                    value = SerializationUtils.deserialize(getBytes(buffer));
+            }
+            setter.accept(stage, value);
+        }
+
+        private static int kindOf(Class<?> type) {
+
+            if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            } else if (type == byte.class || type == Byte.class) {
+                return BYTE;
+            } else if (type == short.class || type == Short.class) {
+                return SHORT;
+            } else if (type == char.class || type == Character.class) {
+                return CHAR;
+            } else if (type == int.class || type == Integer.class) {
+                return INT;
+            } else if (type == long.class || type == Long.class) {
+                return LONG;
+            } else if (type == float.class || type == Float.class) {
+                return FLOAT;
+            } else if (type == double.class || type == Double.class) {
+                return DOUBLE;
+            } else if (type == String.class) {
+                return STRING;
+            } else if (type == Timestamp.class) {
+                return TIMESTAMP;
+            } else if (type == java.sql.Date.class) {
+                return SQL_DATE;
+            } else if (type == Date.class) {
+                return DATE;
+            } else if (type == BigDecimal.class) {
+                return BIG_DECIMAL;
+            } else if (type.isEnum()) {
+                return ENUM;
+            }
+            return SERIALIZED;
+        }
+
+        private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        private static byte[] getBytes(ByteBuffer buffer) {
+
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+}
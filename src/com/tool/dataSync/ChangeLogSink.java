@@ -0,0 +1,18 @@
+package com.tool.dataSync;
+
+/**
+ * Where {@link AbstractIncSyncServiceImpl} streams the change log rows produced by
+ * {@link AbstractIncSyncServiceImpl#convertToLogEntity(StageBase)}. The implementations differ in when the rows are
+ * written: {@link InTransactionChangeLogSink} inside the sync transaction, {@link AfterCommitChangeLogSink} after
+ * it committed and {@link WriteAheadLogChangeLogSink} asynchronously, backed by a local write-ahead file.
+ */
+public interface ChangeLogSink<Log> {
+
+    void append(Log log);
+
+    /**
+     * Called once the rows of a sync step have all been appended.
+     */
+    void flush();
+
+}
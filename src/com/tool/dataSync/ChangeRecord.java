@@ -0,0 +1,97 @@
+package com.tool.dataSync;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * One change of a change set computed by {@link AbstractIncSyncServiceImpl#diffData}: the stage row to insert or
+ * delete, or for an update the stage row before the change together with the properties that change.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeRecord {
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true)
+            .configure(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN, true)
+            .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+    private static final String ACTION_PROPERTY = "action";
+    private static final String DIRTY_PROPERTIES_PROPERTY = "dirtyProperties";
+
+    private SyncAction action;
+    private ObjectNode row;
+    private ObjectNode changes;
+
+    static ChangeRecord of(SyncAction action, StageBase row) {
+
+        ChangeRecord record = new ChangeRecord();
+        record.setAction(action);
+        record.setRow(toNode(row));
+        return record;
+    }
+
+    /**
+     * Update from {@code before} to {@code after}; only properties whose values differ are kept as changes.
+     */
+    static ChangeRecord update(StageBase before, StageBase after) {
+
+        ChangeRecord record = of(SyncAction.UPDATE, before);
+        ObjectNode changes = OBJECT_MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = toNode(after).fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().equals(record.getRow().get(field.getKey()))) {
+                changes.set(field.getKey(), field.getValue());
+            }
+        }
+        record.setChanges(changes);
+        return record;
+    }
+
+    /**
+     * The stage row of this change, with the changes applied for an update.
+     */
+    <Stage extends StageBase> Stage toStage(Class<Stage> stageClass) {
+
+        try {
+            Stage stage = OBJECT_MAPPER.treeToValue(row, stageClass);
+            stage.setAction(action.getCode());
+            return stage;
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not read " + action + " of " + stageClass.getSimpleName(), e);
+        }
+    }
+
+    void applyChanges(StageBase stage) {
+
+        if (changes == null) {
+            return;
+        }
+        try {
+            OBJECT_MAPPER.readerForUpdating(stage).readValue(changes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not apply changes to " + stage.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static ObjectNode toNode(StageBase row) {
+
+        ObjectNode node = OBJECT_MAPPER.valueToTree(row);
+        node.remove(ACTION_PROPERTY);
+        node.remove(DIRTY_PROPERTIES_PROPERTY);
+        return node;
+    }
+}
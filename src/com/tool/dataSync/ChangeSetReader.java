@@ -0,0 +1,65 @@
+package com.tool.dataSync;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the JSON lines written by {@link ChangeSetWriter} one record at a time, e.g. for
+ * {@link AbstractIncSyncServiceImpl#replayChangeSet(Iterator)}.
+ */
+public class ChangeSetReader implements Iterator<ChangeRecord>, Closeable {
+
+    private final BufferedReader reader;
+    private String nextLine;
+
+    public ChangeSetReader(InputStream inputStream) {
+
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        return nextLine != null;
+    }
+
+    @Override
+    public ChangeRecord next() {
+
+        if (nextLine == null) {
+            throw new NoSuchElementException();
+        }
+        try {
+            ChangeRecord record = ChangeRecord.OBJECT_MAPPER.readValue(nextLine, ChangeRecord.class);
+            this.advance();
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not read change record " + nextLine, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        reader.close();
+    }
+
+    private void advance() {
+
+        try {
+            do {
+                nextLine = reader.readLine();
+            } while (nextLine != null && nextLine.trim().isEmpty());
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not read change set", e);
+        }
+    }
+}
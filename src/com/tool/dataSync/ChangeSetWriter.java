@@ -0,0 +1,42 @@
+package com.tool.dataSync;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes {@link ChangeRecord}s as JSON lines, one record per line. Wrap the stream in a {@code GZIPOutputStream}
+ * for large change sets; {@link ChangeSetReader} reads them back.
+ */
+public class ChangeSetWriter implements Consumer<ChangeRecord>, Closeable {
+
+    private final Writer writer;
+
+    public ChangeSetWriter(OutputStream outputStream) {
+
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void accept(ChangeRecord record) {
+
+        try {
+            writer.write(ChangeRecord.OBJECT_MAPPER.writeValueAsString(record));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not write change record", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        writer.close();
+    }
+}
@@ -0,0 +1,216 @@
+package com.tool.dataSync;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * {@link StageIndex} keyed by a {@link UniqueKeyCodec}. An open addressing table (linear probing, power of two
+ * capacity) holds per distinct key only the key itself and the position of its first unmatched row; rows of the same
+ * key are chained through an {@code int[]} in their original order, so a key with a single row needs no bucket object
+ * at all. The head of a chain moves past rows as they get matched, which makes finding the first unmatched row O(1)
+ * amortized; looking a key up allocates nothing. Packed keys are copied into one shared byte array.
+ * <p>
+ * Inserted rows are only appended to {@link #getRows()}: their key has no unmatched row, and never will.
+ */
+final class CompactStageIndex<Source, Stage extends StageBase> implements StageIndex<Source, Stage> {
+
+    private static final int NONE = -1;
+
+    /**
+     * Head of a key whose rows are all matched; unlike {@link #NONE} it keeps the slot occupied for probing.
+     */
+    private static final int MATCHED = -2;
+
+    private final LongKeyCodec<Source, Stage> longKeyCodec;
+    private final PackedKeyCodec<Source, Stage> packedKeyCodec;
+    private final ArrayList<Stage> rows;
+    private final int[] next;
+    private final int mask;
+    private final int[] heads;
+    private final long[] keys;
+    private final int[] keyOffsets;
+    private byte[] keyBytes;
+    private int keyBytesSize;
+    private final ByteBuffer keyBuffer;
+
+    @SuppressWarnings("unchecked")
+    CompactStageIndex(List<Stage> stageDatas, UniqueKeyCodec<Source, Stage> codec) {
+
+        int size = stageDatas.size();
+        this.rows = new ArrayList<>(stageDatas);
+        this.next = new int[size];
+        int capacity = Integer.highestOneBit(Math.max(4, size * 4 / 3) - 1) << 1;
+        this.mask = capacity - 1;
+        this.heads = new int[capacity];
+        Arrays.fill(heads, NONE);
+        if (codec instanceof LongKeyCodec) {
+            this.longKeyCodec = (LongKeyCodec<Source, Stage>) codec;
+            this.packedKeyCodec = null;
+            this.keys = new long[capacity];
+            this.keyOffsets = null;
+            this.keyBuffer = null;
+        } else if (codec instanceof PackedKeyCodec) {
+            this.longKeyCodec = null;
+            this.packedKeyCodec = (PackedKeyCodec<Source, Stage>) codec;
+            this.keys = new long[capacity];
+            this.keyOffsets = new int[capacity];
+            this.keyBytes = new byte[Math.max(16, size * Math.min(16, packedKeyCodec.getMaxKeyLength()))];
+            this.keyBuffer = ByteBuffer.allocate(packedKeyCodec.getMaxKeyLength());
+        } else {
+            throw new IllegalArgumentException("unsupported key codec " + codec.getClass().getName());
+        }
+        // chaining in reverse order keeps the rows of a key in their original order
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = this.slotOfStage(stageDatas.get(i), true);
+            next[i] = heads[slot];
+            heads[slot] = i;
+        }
+    }
+
+    @Override
+    public Stage findUnmatched(Source source, BiPredicate<Source, Stage> sameKey) {
+
+        int slot = this.slotOfSource(source);
+        if (slot == NONE) {
+            return null;
+        }
+        int head = heads[slot];
+        while (head >= 0 && SyncAction.DELETE.getCode() != rows.get(head).getAction()) {
+            head = next[head];
+        }
+        if (head < 0) {
+            heads[slot] = MATCHED;
+            return null;
+        }
+        heads[slot] = head;
+        Stage first = rows.get(head);
+        for (int i = head; i != NONE; i = next[i]) {
+            Stage stage = rows.get(i);
+            if (SyncAction.DELETE.getCode() == stage.getAction() && sameKey.test(source, stage)) {
+                return stage;
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public void addInsert(Source source, Stage stage) {
+
+        rows.add(stage);
+    }
+
+    @Override
+    public List<Stage> getRows() {
+
+        return rows;
+    }
+
+    private int slotOfSource(Source source) {
+
+        if (longKeyCodec != null) {
+            return this.slotOfLong(longKeyCodec.encodeSource(source), false);
+        }
+        keyBuffer.clear();
+        packedKeyCodec.encodeSource(source, keyBuffer);
+        keyBuffer.flip();
+        return this.slotOfBytes(false);
+    }
+
+    private int slotOfStage(Stage stage, boolean create) {
+
+        if (longKeyCodec != null) {
+            return this.slotOfLong(longKeyCodec.encodeStage(stage), create);
+        }
+        keyBuffer.clear();
+        packedKeyCodec.encodeStage(stage, keyBuffer);
+        keyBuffer.flip();
+        return this.slotOfBytes(create);
+    }
+
+    private int slotOfLong(long key, boolean create) {
+
+        for (int slot = (int) mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (heads[slot] == NONE) {
+                if (create) {
+                    keys[slot] = key;
+                    return slot;
+                }
+                return NONE;
+            }
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Packed keys: {@code keys} holds the hash, {@code keyOffsets} the offset of the length prefixed key bytes.
+     */
+    private int slotOfBytes(boolean create) {
+
+        long hash = this.hashKeyBuffer();
+        for (int slot = (int) mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            if (heads[slot] == NONE) {
+                if (create) {
+                    keys[slot] = hash;
+                    keyOffsets[slot] = this.appendKeyBuffer();
+                    return slot;
+                }
+                return NONE;
+            }
+            if (keys[slot] == hash && this.keyBufferEquals(keyOffsets[slot])) {
+                return slot;
+            }
+        }
+    }
+
+    private long hashKeyBuffer() {
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = keyBuffer.position(); i < keyBuffer.limit(); i++) {
+            hash = (hash ^ keyBuffer.get(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private int appendKeyBuffer() {
+
+        int length = keyBuffer.remaining();
+        if (keyBytesSize + length + 4 > keyBytes.length) {
+            keyBytes = Arrays.copyOf(keyBytes, Math.max(keyBytes.length * 2, keyBytesSize + length + 4));
+        }
+        int offset = keyBytesSize;
+        keyBytes[offset] = (byte) (length >>> 24);
+        keyBytes[offset + 1] = (byte) (length >>> 16);
+        keyBytes[offset + 2] = (byte) (length >>> 8);
+        keyBytes[offset + 3] = (byte) length;
+        keyBuffer.duplicate().get(keyBytes, offset + 4, length);
+        keyBytesSize += length + 4;
+        return offset;
+    }
+
+    private boolean keyBufferEquals(int offset) {
+
+        int length = ((keyBytes[offset] & 0xff) << 24) | ((keyBytes[offset + 1] & 0xff) << 16)
+                | ((keyBytes[offset + 2] & 0xff) << 8) | (keyBytes[offset + 3] & 0xff);
+        if (length != keyBuffer.remaining()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (keyBytes[offset + 4 + i] != keyBuffer.get(keyBuffer.position() + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long value) {
+
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
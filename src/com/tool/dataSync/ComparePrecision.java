@@ -0,0 +1,35 @@
+package com.tool.dataSync;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per field comparison precision of a source field, normalizing the source and the stage value alike. Without it
+ * floats are rounded to 6 decimals on the source side only and every other value is compared as is.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ComparePrecision {
+
+    /**
+     * Decimals Float, Double and BigDecimal values are rounded to, half even; negative keeps the default (6 for
+     * floats, none otherwise).
+     */
+    int scale() default -1;
+
+    /**
+     * Numbers at most this far apart after rounding compare equal. Rows with such a field are never matched by
+     * {@link RowDigest}.
+     */
+    double epsilon() default 0;
+
+    /**
+     * Date and Timestamp values are truncated to this unit of the default time zone, and then compared as plain
+     * dates.
+     */
+    TimeUnit truncateTo() default TimeUnit.MILLISECONDS;
+
+}
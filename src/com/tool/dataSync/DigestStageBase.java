@@ -0,0 +1,26 @@
+package com.tool.dataSync;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * Stage base class with a content digest over the compared properties. When the digest of an incoming source row
+ * equals the stored one, the row is taken as unchanged without a property by property comparison.
+ * The column is written by the sync on every insert and update from the values being written; rows changed outside
+ * the sync must reset it to {@code null}, and columns the database stores with less precision than the entity holds
+ * should be normalized before they are compared.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@MappedSuperclass
+public abstract class DigestStageBase extends StageBase {
+
+    @Column(name = "rowDigest")
+    private Long rowDigest;
+
+}
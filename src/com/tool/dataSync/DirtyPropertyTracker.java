@@ -0,0 +1,58 @@
+package com.tool.dataSync;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Finds the properties of a stage row that a conversion changed, by comparing the property values taken before
+ * it with the ones after it. Works whatever the conversion does, including overridden
+ * {@link AbstractIncSyncServiceImpl#convertSourceToStage(Object, StageBase)} implementations.
+ */
+final class DirtyPropertyTracker {
+
+    private final String[] names;
+    private final List<Function<Object, Object>> getters = new ArrayList<>();
+
+    DirtyPropertyTracker(Class<?> stageClass) {
+
+        List<String> names = new ArrayList<>();
+        PropertyAccessors.getPropertyDescriptors(stageClass).forEach((name, descriptor) -> {
+            if (this.isTracked(name, descriptor)) {
+                names.add(name);
+                getters.add(PropertyAccessors.getter(descriptor.getReadMethod()));
+            }
+        });
+        this.names = names.toArray(new String[0]);
+    }
+
+    Object[] snapshot(Object stage) {
+
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getters.get(i).apply(stage);
+        }
+        return values;
+    }
+
+    Set<String> changedProperties(Object stage, Object[] snapshot) {
+
+        Set<String> changed = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            if (!Objects.deepEquals(snapshot[i], getters.get(i).apply(stage))) {
+                changed.add(names[i]);
+            }
+        }
+        return changed;
+    }
+
+    private boolean isTracked(String name, PropertyDescriptor descriptor) {
+
+        return descriptor.getReadMethod() != null && descriptor.getWriteMethod() != null
+                && !"action".equals(name) && !"dirtyProperties".equals(name);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tool.dataSync;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SyncPersistenceStrategy} that keeps the persistence context bounded: it persists or merges entities and
+ * flushes and clears the {@link EntityManager} every {@code batchSize} rows, so together with
+ * {@code hibernate.jdbc.batch_size} (and ordered inserts/updates) the rows go out as JDBC batches. Deletes are bulk
+ * {@code delete ... where id in (...)} statements, which skip entity listeners and cascades like
+ * {@code deleteAllInBatch} does.
+ * <p>
+ * Clearing detaches every entity of the current persistence context, not only the ones written here.
+ */
+public class EntityManagerBatchPersistenceStrategy<E> implements SyncPersistenceStrategy<E> {
+
+    private final EntityManager entityManager;
+    private final Class<E> entityClass;
+    private final int batchSize;
+
+    public EntityManagerBatchPersistenceStrategy(EntityManager entityManager, Class<E> entityClass, int batchSize) {
+
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insert(List<E> entities) {
+
+        for (int i = 0; i < entities.size(); i++) {
+            entityManager.persist(entities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                this.flushAndClear();
+            }
+        }
+        this.flushAndClear();
+    }
+
+    @Override
+    public void update(List<E> entities) {
+
+        for (int i = 0; i < entities.size(); i++) {
+            entityManager.merge(entities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                this.flushAndClear();
+            }
+        }
+        this.flushAndClear();
+    }
+
+    @Override
+    public void delete(List<E> entities) {
+
+        EntityType<E> entityType = entityManager.getMetamodel().entity(entityClass);
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        String jpql = "delete from " + entityType.getName() + " x where x." + idName + " in :ids";
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Object> ids = new ArrayList<>(Math.min(batchSize, entities.size()));
+        for (E entity : entities) {
+            ids.add(persistenceUnitUtil.getIdentifier(entity));
+            if (ids.size() >= batchSize) {
+                entityManager.createQuery(jpql).setParameter("ids", ids).executeUpdate();
+                ids.clear();
+            }
+        }
+        if (!ids.isEmpty()) {
+            entityManager.createQuery(jpql).setParameter("ids", ids).executeUpdate();
+        }
+    }
+
+    private void flushAndClear() {
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,81 @@
+package com.tool.dataSync;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization and comparison of a field annotated with {@link ComparePrecision}.
+ */
+@Getter
+final class FieldPrecision {
+
+    private final int scale;
+    private final double epsilon;
+    private final TimeUnit truncateTo;
+    private final BigDecimal decimalEpsilon;
+
+    FieldPrecision(ComparePrecision precision) {
+
+        this.scale = precision.scale();
+        this.epsilon = precision.epsilon();
+        this.truncateTo = precision.truncateTo();
+        this.decimalEpsilon = BigDecimal.valueOf(precision.epsilon());
+    }
+
+    boolean isExact() {
+
+        return epsilon == 0;
+    }
+
+    float round(float value) {
+
+        return ValueNormalizer.roundFloat(value, scale < 0 ? ValueNormalizer.DEFAULT_FLOAT_SCALE : scale);
+    }
+
+    double round(double value) {
+
+        return scale < 0 ? value : ValueNormalizer.roundDouble(value, scale);
+    }
+
+    Object normalize(Object value) {
+
+        if (value instanceof Float) {
+            return this.round((float) (Float) value);
+        } else if (value instanceof Double) {
+            return this.round((double) (Double) value);
+        } else if (value instanceof BigDecimal && scale >= 0) {
+            return ValueNormalizer.roundDecimal((BigDecimal) value, scale);
+        } else if (value instanceof Date && truncateTo != TimeUnit.MILLISECONDS) {
+            return ValueNormalizer.truncate((Date) value, truncateTo);
+        }
+        return value;
+    }
+
+    boolean differs(Object sourceValue, Object stageValue) {
+
+        Object source = this.normalize(sourceValue);
+        Object stage = this.normalize(stageValue);
+        if (source == stage) {
+            return false;
+        } else if (source == null || stage == null) {
+            return true;
+        } else if (epsilon > 0 && source instanceof Number && stage instanceof Number) {
+            if (source instanceof BigDecimal && stage instanceof BigDecimal) {
+                return ((BigDecimal) source).subtract((BigDecimal) stage).abs().compareTo(decimalEpsilon) > 0;
+            }
+            return this.differs(((Number) source).doubleValue(), ((Number) stage).doubleValue());
+        }
+        return !source.equals(stage);
+    }
+
+    /**
+     * Both values already rounded.
+     */
+    boolean differs(double source, double stage) {
+
+        return Double.doubleToLongBits(source) != Double.doubleToLongBits(stage) && !(Math.abs(source - stage) <= epsilon);
+    }
+}
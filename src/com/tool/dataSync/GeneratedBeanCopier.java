@@ -0,0 +1,169 @@
+package com.tool.dataSync;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link BeanCopier} with the property matching rules of Spring {@code BeanUtils.copyProperties}: every readable
+ * source property is copied to the writable target property of the same name when the types are assignable.
+ * The getter/setter pairs are linked once per (source, target) class pair and cached, so a copy is a sequence of
+ * direct calls; int, long and double properties are copied without boxing.
+ */
+public class GeneratedBeanCopier implements BeanCopier {
+
+    private static final ConcurrentMap<Pair<Class<?>, Class<?>>, PropertyCopy[]> COPY_PLANS = new ConcurrentHashMap<>();
+
+    @Override
+    public void copy(Object source, Object target) {
+
+        for (PropertyCopy propertyCopy : getCopyPlan(source.getClass(), target.getClass())) {
+            try {
+                propertyCopy.copy(source, target);
+            } catch (RuntimeException e) {
+                throw new FatalBeanException("Could not copy property '" + propertyCopy.name + "' from source to target", e);
+            }
+        }
+    }
+
+    static PropertyCopy[] getCopyPlan(Class<?> sourceClass, Class<?> targetClass) {
+
+        return COPY_PLANS.computeIfAbsent(Pair.create(sourceClass, targetClass), x -> build(x.getFirst(), x.getSecond()));
+    }
+
+    private static PropertyCopy[] build(Class<?> sourceClass, Class<?> targetClass) {
+
+        Map<String, PropertyDescriptor> sourceDescriptors = PropertyAccessors.getPropertyDescriptors(sourceClass);
+        List<PropertyCopy> propertyCopies = new ArrayList<>();
+        for (PropertyDescriptor targetDescriptor : PropertyAccessors.getPropertyDescriptors(targetClass).values()) {
+            Method writeMethod = targetDescriptor.getWriteMethod();
+            PropertyDescriptor sourceDescriptor = sourceDescriptors.get(targetDescriptor.getName());
+            if (writeMethod == null || sourceDescriptor == null || sourceDescriptor.getReadMethod() == null) {
+                continue;
+            }
+            Method readMethod = sourceDescriptor.getReadMethod();
+            if (ClassUtils.isAssignable(writeMethod.getParameterTypes()[0], readMethod.getReturnType())) {
+                propertyCopies.add(createPropertyCopy(targetDescriptor.getName(), readMethod, writeMethod));
+            }
+        }
+        return propertyCopies.toArray(new PropertyCopy[0]);
+    }
+
+    private static PropertyCopy createPropertyCopy(String name, Method readMethod, Method writeMethod) {
+
+        Class<?> type = readMethod.getReturnType();
+        if (type == writeMethod.getParameterTypes()[0]) {
+            if (type == int.class) {
+                return new IntPropertyCopy(name, PropertyAccessors.intGetter(readMethod), PropertyAccessors.intSetter(writeMethod));
+            } else if (type == long.class) {
+                return new LongPropertyCopy(name, PropertyAccessors.longGetter(readMethod), PropertyAccessors.longSetter(writeMethod));
+            } else if (type == double.class) {
+                return new DoublePropertyCopy(name, PropertyAccessors.doubleGetter(readMethod), PropertyAccessors.doubleSetter(writeMethod));
+            }
+        }
+        return new ObjectPropertyCopy(name, PropertyAccessors.getter(readMethod), PropertyAccessors.setter(writeMethod));
+    }
+
+    abstract static class PropertyCopy {
+
+        final String name;
+
+        PropertyCopy(String name) {
+
+            this.name = name;
+        }
+
+        abstract void copy(Object source, Object target);
+    }
+
+    private static final class ObjectPropertyCopy extends PropertyCopy {
+
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+
+        ObjectPropertyCopy(String name, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void copy(Object source, Object target) {
+
+            setter.accept(target, getter.apply(source));
+        }
+    }
+
+    private static final class IntPropertyCopy extends PropertyCopy {
+
+        private final ToIntFunction<Object> getter;
+        private final ObjIntConsumer<Object> setter;
+
+        IntPropertyCopy(String name, ToIntFunction<Object> getter, ObjIntConsumer<Object> setter) {
+
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void copy(Object source, Object target) {
+
+            setter.accept(target, getter.applyAsInt(source));
+        }
+    }
+
+    private static final class LongPropertyCopy extends PropertyCopy {
+
+        private final ToLongFunction<Object> getter;
+        private final ObjLongConsumer<Object> setter;
+
+        LongPropertyCopy(String name, ToLongFunction<Object> getter, ObjLongConsumer<Object> setter) {
+
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void copy(Object source, Object target) {
+
+            setter.accept(target, getter.applyAsLong(source));
+        }
+    }
+
+    private static final class DoublePropertyCopy extends PropertyCopy {
+
+        private final ToDoubleFunction<Object> getter;
+        private final ObjDoubleConsumer<Object> setter;
+
+        DoublePropertyCopy(String name, ToDoubleFunction<Object> getter, ObjDoubleConsumer<Object> setter) {
+
+            super(name);
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        void copy(Object source, Object target) {
+
+            setter.accept(target, getter.applyAsDouble(source));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tool.dataSync;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StageIndex} over a map of the composed unique objects, used when no {@link UniqueKeyCodec} is configured.
+ */
+@Slf4j
+final class HashStageIndex<Source, Stage extends StageBase> implements StageIndex<Source, Stage> {
+
+    private final Map<Object, List<Stage>> uniqueObjMap = new HashMap<>();
+    private final Function<Source, Object> sourceUniqueObjFunction;
+
+    HashStageIndex(List<Stage> stageDatas, Function<Source, Object> sourceUniqueObjFunction, Function<Stage, Object> stageUniqueObjFunction) {
+
+        this.sourceUniqueObjFunction = sourceUniqueObjFunction;
+        stageDatas.forEach(x -> {
+            Object uniqueObj = stageUniqueObjFunction.apply(x);
+            List<Stage> stages = uniqueObjMap.get(uniqueObj);
+            if (stages != null) {
+                stages.add(x);
+                if (log.isDebugEnabled()) {
+                    log.debug("repeat key:{}", stages);
+                }
+            } else {
+                uniqueObjMap.put(uniqueObj, Lists.newArrayList(x));
+            }
+        });
+    }
+
+    @Override
+    public Stage findUnmatched(Source source, BiPredicate<Source, Stage> sameKey) {
+
+        List<Stage> stages = uniqueObjMap.get(sourceUniqueObjFunction.apply(source));
+        return stages == null ? null : findUnmatched(stages, source, sameKey);
+    }
+
+    @Override
+    public void addInsert(Source source, Stage stage) {
+
+        uniqueObjMap.computeIfAbsent(sourceUniqueObjFunction.apply(source), x -> new ArrayList<>(1)).add(stage);
+    }
+
+    @Override
+    public List<Stage> getRows() {
+
+        return uniqueObjMap.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    static <Source, Stage extends StageBase> Stage findUnmatched(List<Stage> stages, Source source, BiPredicate<Source, Stage> sameKey) {
+
+        Stage firstUnmatched = null;
+        for (Stage stage : stages) {
+            if (SyncAction.DELETE.getCode() == stage.getAction()) {
+                if (sameKey.test(source, stage)) {
+                    return stage;
+                }
+                if (firstUnmatched == null) {
+                    firstUnmatched = stage;
+                }
+            }
+        }
+        return firstUnmatched;
+    }
+}
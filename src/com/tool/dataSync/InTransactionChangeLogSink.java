@@ -0,0 +1,58 @@
+package com.tool.dataSync;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the log rows within the sync transaction, every {@code batchSize} rows and on {@link #flush()}, so at most
+ * {@code batchSize} rows are held per thread. This is the default of
+ * {@link AbstractIncSyncServiceImpl#getChangeLogSink()}.
+ */
+public class InTransactionChangeLogSink<Log> implements ChangeLogSink<Log> {
+
+    private final SyncPersistenceStrategy<Log> persistenceStrategy;
+    private final int batchSize;
+    private final ThreadLocal<List<Log>> pending = ThreadLocal.withInitial(ArrayList::new);
+
+    public InTransactionChangeLogSink(SyncPersistenceStrategy<Log> persistenceStrategy, int batchSize) {
+
+        this.persistenceStrategy = persistenceStrategy;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void append(Log log) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this)) {
+            // rows left by a failed sync step must not leak into the next transaction of this thread
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCompletion(int status) {
+
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InTransactionChangeLogSink.this);
+                    pending.remove();
+                }
+            });
+        }
+        List<Log> logs = pending.get();
+        logs.add(log);
+        if (logs.size() >= batchSize) {
+            this.flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+
+        List<Log> logs = pending.get();
+        pending.remove();
+        if (!logs.isEmpty()) {
+            persistenceStrategy.insert(logs);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.tool.dataSync;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * High throughput {@link SyncPersistenceStrategy} writing through JDBC batches of {@code batchSize} statements,
+ * without merges, per-row selects or a persistence context. The SQL is derived from the JPA annotations of the
+ * entity (see {@link JdbcEntityMapping}); column names go through {@code columnNaming}, so a physical naming
+ * strategy such as camel case to snake case can be applied.
+ * <p>
+ * Generated ids are not read back after inserts, and entity listeners do not run (createdAt/updatedAt are filled
+ * in here instead).
+ */
+public class JdbcBatchPersistenceStrategy<E> implements SyncPersistenceStrategy<E> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final JdbcEntityMapping mapping;
+    private final String insertSql;
+    private final String updateSql;
+    private final String deleteSql;
+
+    public JdbcBatchPersistenceStrategy(JdbcTemplate jdbcTemplate, Class<E> entityClass, int batchSize) {
+
+        this(jdbcTemplate, entityClass, batchSize, Function.identity());
+    }
+
+    public JdbcBatchPersistenceStrategy(JdbcTemplate jdbcTemplate, Class<E> entityClass, int batchSize, Function<String, String> columnNaming) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.mapping = new JdbcEntityMapping(entityClass, columnNaming);
+        this.insertSql = mapping.insertSql();
+        this.updateSql = mapping.updateSql();
+        this.deleteSql = mapping.deleteSql();
+    }
+
+    @Override
+    public void insert(List<E> entities) {
+
+        jdbcTemplate.batchUpdate(insertSql, entities, batchSize, (ps, entity) -> {
+            mapping.touch(entity, true);
+            setValues(ps, mapping.insertValues(entity));
+        });
+    }
+
+    @Override
+    public void update(List<E> entities) {
+
+        jdbcTemplate.batchUpdate(updateSql, entities, batchSize, (ps, entity) -> {
+            mapping.touch(entity, false);
+            setValues(ps, mapping.updateValues(entity));
+        });
+    }
+
+    /**
+     * Rows are grouped by their set of dirty properties and every group is written as a batch of updates of just
+     * those columns.
+     */
+    @Override
+    public void updateDirty(List<E> entities, List<Set<String>> dirtyProperties) {
+
+        List<E> fullUpdates = new ArrayList<>();
+        Map<Set<String>, List<E>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < entities.size(); i++) {
+            Set<String> properties = dirtyProperties.get(i);
+            if (properties == null) {
+                fullUpdates.add(entities.get(i));
+            } else {
+                groups.computeIfAbsent(properties, x -> new ArrayList<>()).add(entities.get(i));
+            }
+        }
+        if (!fullUpdates.isEmpty()) {
+            this.update(fullUpdates);
+        }
+        groups.forEach((properties, group) -> {
+            String sql = mapping.updateSql(properties);
+            if (sql != null) {
+                jdbcTemplate.batchUpdate(sql, group, batchSize, (ps, entity) -> {
+                    mapping.touch(entity, false);
+                    setValues(ps, mapping.updateValues(entity, properties));
+                });
+            }
+        });
+    }
+
+    @Override
+    public void delete(List<E> entities) {
+
+        jdbcTemplate.batchUpdate(deleteSql, entities, batchSize, (ps, entity) -> setValues(ps, new Object[]{mapping.getId(entity)}));
+    }
+
+    private static void setValues(PreparedStatement ps, Object[] values) throws SQLException {
+
+        for (int i = 0; i < values.length; i++) {
+            StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, values[i]);
+        }
+    }
+}
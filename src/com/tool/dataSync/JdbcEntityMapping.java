@@ -0,0 +1,220 @@
+package com.tool.dataSync;
+
+import javax.persistence.Column;
+import javax.persistence.Embedded;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Table and column layout of a flat JPA entity (including its {@code @MappedSuperclass}es), read from the JPA
+ * annotations with field access. Associations and embedded objects are not supported.
+ */
+final class JdbcEntityMapping {
+
+    private static final String CREATED_AT = "createdAt";
+    private static final String UPDATED_AT = "updatedAt";
+
+    private final String tableName;
+    private final ColumnMapping id;
+    private final List<ColumnMapping> columns;
+    private final Map<Set<String>, List<ColumnMapping>> updateColumns = new ConcurrentHashMap<>();
+
+    JdbcEntityMapping(Class<?> entityClass, Function<String, String> columnNaming) {
+
+        Table table = entityClass.getAnnotation(Table.class);
+        this.tableName = table != null && !table.name().isEmpty() ? table.name() : entityClass.getSimpleName();
+        ColumnMapping idColumn = null;
+        List<ColumnMapping> columnMappings = new ArrayList<>();
+        for (Class<?> type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()
+                        || field.isAnnotationPresent(Transient.class)) {
+                    continue;
+                }
+                if (field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)
+                        || field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToMany.class)
+                        || field.isAnnotationPresent(Embedded.class)) {
+                    throw new UnsupportedOperationException("association " + field + " can not be written through JDBC");
+                }
+                ColumnMapping columnMapping = new ColumnMapping(field, columnNaming);
+                if (field.isAnnotationPresent(Id.class)) {
+                    idColumn = columnMapping;
+                } else {
+                    columnMappings.add(columnMapping);
+                }
+            }
+        }
+        if (idColumn == null) {
+            throw new IllegalArgumentException(entityClass.getName() + " has no @Id field");
+        }
+        this.id = idColumn;
+        this.columns = columnMappings;
+    }
+
+    String insertSql() {
+
+        List<ColumnMapping> insertColumns = this.insertColumns();
+        return "insert into " + tableName + " (" + insertColumns.stream().map(x -> x.columnName).collect(Collectors.joining(", "))
+                + ") values (" + insertColumns.stream().map(x -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+
+    Object[] insertValues(Object entity) {
+
+        List<ColumnMapping> insertColumns = this.insertColumns();
+        Object[] values = new Object[insertColumns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = insertColumns.get(i).getValue(entity);
+        }
+        return values;
+    }
+
+    String updateSql() {
+
+        return "update " + tableName + " set " + columns.stream().map(x -> x.columnName + " = ?").collect(Collectors.joining(", "))
+                + " where " + id.columnName + " = ?";
+    }
+
+    Object[] updateValues(Object entity) {
+
+        Object[] values = new Object[columns.size() + 1];
+        for (int i = 0; i < columns.size(); i++) {
+            values[i] = columns.get(i).getValue(entity);
+        }
+        values[columns.size()] = id.getValue(entity);
+        return values;
+    }
+
+    /**
+     * Update of the columns of the given properties only, plus {@code updatedAt}; properties that are not mapped
+     * to a column are ignored. Null when none of the properties is a column.
+     */
+    String updateSql(Set<String> properties) {
+
+        List<ColumnMapping> dirtyColumns = this.updateColumns(properties);
+        if (dirtyColumns.isEmpty()) {
+            return null;
+        }
+        return "update " + tableName + " set " + dirtyColumns.stream().map(x -> x.columnName + " = ?").collect(Collectors.joining(", "))
+                + " where " + id.columnName + " = ?";
+    }
+
+    Object[] updateValues(Object entity, Set<String> properties) {
+
+        List<ColumnMapping> dirtyColumns = this.updateColumns(properties);
+        Object[] values = new Object[dirtyColumns.size() + 1];
+        for (int i = 0; i < dirtyColumns.size(); i++) {
+            values[i] = dirtyColumns.get(i).getValue(entity);
+        }
+        values[dirtyColumns.size()] = id.getValue(entity);
+        return values;
+    }
+
+    String deleteSql() {
+
+        return "delete from " + tableName + " where " + id.columnName + " = ?";
+    }
+
+    Object getId(Object entity) {
+
+        return id.getValue(entity);
+    }
+
+    /**
+     * Does what the createdAt/updatedAt entity listeners would do, since JDBC writes bypass them.
+     */
+    void touch(Object entity, boolean insert) {
+
+        Date now = new Date();
+        for (ColumnMapping column : columns) {
+            if (column.field.getType() != Date.class) {
+                continue;
+            }
+            if (UPDATED_AT.equals(column.field.getName()) || (insert && CREATED_AT.equals(column.field.getName()) && column.getValue(entity) == null)) {
+                column.setValue(entity, now);
+            }
+        }
+    }
+
+    private List<ColumnMapping> updateColumns(Set<String> properties) {
+
+        return updateColumns.computeIfAbsent(properties, key -> {
+            List<ColumnMapping> dirtyColumns = columns.stream().filter(x -> key.contains(x.field.getName())).collect(Collectors.toList());
+            if (!dirtyColumns.isEmpty()) {
+                columns.stream().filter(x -> UPDATED_AT.equals(x.field.getName()) && !key.contains(UPDATED_AT)).forEach(dirtyColumns::add);
+            }
+            return dirtyColumns;
+        });
+    }
+
+    private List<ColumnMapping> insertColumns() {
+
+        if (id.generated) {
+            return columns;
+        }
+        List<ColumnMapping> insertColumns = new ArrayList<>(columns.size() + 1);
+        insertColumns.add(id);
+        insertColumns.addAll(columns);
+        return insertColumns;
+    }
+
+    private static final class ColumnMapping {
+
+        private final Field field;
+        private final String columnName;
+        private final boolean generated;
+        private final boolean enumByName;
+
+        ColumnMapping(Field field, Function<String, String> columnNaming) {
+
+            field.setAccessible(true);
+            this.field = field;
+            Column column = field.getAnnotation(Column.class);
+            this.columnName = columnNaming.apply(column != null && !column.name().isEmpty() ? column.name() : field.getName());
+            this.generated = field.isAnnotationPresent(GeneratedValue.class);
+            Enumerated enumerated = field.getAnnotation(Enumerated.class);
+            this.enumByName = enumerated != null && enumerated.value() == EnumType.STRING;
+        }
+
+        Object getValue(Object entity) {
+
+            Object value;
+            try {
+                value = field.get(entity);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            if (value instanceof Enum) {
+                return enumByName ? ((Enum<?>) value).name() : ((Enum<?>) value).ordinal();
+            }
+            return value;
+        }
+
+        void setValue(Object entity, Object value) {
+
+            try {
+                field.set(entity, value);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.tool.dataSync;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.SerializationUtils;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * {@link SyncCheckpointStore} backed by a table with the columns
+ * {@code tableName, lastUniqueObj (varbinary/blob), sourceSize, liveSize, updatedAt}.
+ * The unique object is stored with java serialization, so it has to be {@link Serializable}.
+ */
+public class JdbcSyncCheckpointStore implements SyncCheckpointStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String checkpointTable;
+
+    public JdbcSyncCheckpointStore(JdbcTemplate jdbcTemplate) {
+
+        this(jdbcTemplate, "sync_checkpoint");
+    }
+
+    public JdbcSyncCheckpointStore(JdbcTemplate jdbcTemplate, String checkpointTable) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointTable = checkpointTable;
+    }
+
+    @Override
+    public SyncCheckpoint load(String table) {
+
+        List<SyncCheckpoint> checkpoints = jdbcTemplate.query("select tableName, lastUniqueObj, sourceSize, liveSize, updatedAt from "
+                + checkpointTable + " where tableName = ?", (rs, rowNum) -> {
+            SyncCheckpoint checkpoint = new SyncCheckpoint();
+            checkpoint.setTable(rs.getString("tableName"));
+            checkpoint.setLastUniqueObj(SerializationUtils.deserialize(rs.getBytes("lastUniqueObj")));
+            checkpoint.setSourceSize(rs.getLong("sourceSize"));
+            checkpoint.setLiveSize(rs.getLong("liveSize"));
+            checkpoint.setUpdatedAt(rs.getTimestamp("updatedAt"));
+            return checkpoint;
+        }, table);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    @Override
+    public void save(SyncCheckpoint checkpoint) {
+
+        byte[] lastUniqueObj = SerializationUtils.serialize((Serializable) checkpoint.getLastUniqueObj());
+        Date updatedAt = new Date();
+        int updated = jdbcTemplate.update("update " + checkpointTable + " set lastUniqueObj = ?, sourceSize = ?, liveSize = ?, updatedAt = ? where tableName = ?",
+                lastUniqueObj, checkpoint.getSourceSize(), checkpoint.getLiveSize(), updatedAt, checkpoint.getTable());
+        if (updated == 0) {
+            jdbcTemplate.update("insert into " + checkpointTable + " (tableName, lastUniqueObj, sourceSize, liveSize, updatedAt) values (?, ?, ?, ?, ?)",
+                    checkpoint.getTable(), lastUniqueObj, checkpoint.getSourceSize(), checkpoint.getLiveSize(), updatedAt);
+        }
+    }
+
+    @Override
+    public void clear(String table) {
+
+        jdbcTemplate.update("delete from " + checkpointTable + " where tableName = ?", table);
+    }
+}
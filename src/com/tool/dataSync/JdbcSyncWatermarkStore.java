@@ -0,0 +1,50 @@
+package com.tool.dataSync;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * {@link SyncWatermarkStore} backed by a table with the columns {@code tableName, watermark, lastFullSyncAt}.
+ */
+public class JdbcSyncWatermarkStore implements SyncWatermarkStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String watermarkTable;
+
+    public JdbcSyncWatermarkStore(JdbcTemplate jdbcTemplate) {
+
+        this(jdbcTemplate, "sync_watermark");
+    }
+
+    public JdbcSyncWatermarkStore(JdbcTemplate jdbcTemplate, String watermarkTable) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.watermarkTable = watermarkTable;
+    }
+
+    @Override
+    public SyncWatermark load(String table) {
+
+        List<SyncWatermark> watermarks = jdbcTemplate.query("select tableName, watermark, lastFullSyncAt from " + watermarkTable
+                + " where tableName = ?", (rs, rowNum) -> {
+            SyncWatermark watermark = new SyncWatermark();
+            watermark.setTable(rs.getString("tableName"));
+            watermark.setWatermark(rs.getTimestamp("watermark"));
+            watermark.setLastFullSyncAt(rs.getTimestamp("lastFullSyncAt"));
+            return watermark;
+        }, table);
+        return watermarks.isEmpty() ? null : watermarks.get(0);
+    }
+
+    @Override
+    public void save(SyncWatermark watermark) {
+
+        int updated = jdbcTemplate.update("update " + watermarkTable + " set watermark = ?, lastFullSyncAt = ? where tableName = ?",
+                watermark.getWatermark(), watermark.getLastFullSyncAt(), watermark.getTable());
+        if (updated == 0) {
+            jdbcTemplate.update("insert into " + watermarkTable + " (tableName, watermark, lastFullSyncAt) values (?, ?, ?)",
+                    watermark.getTable(), watermark.getWatermark(), watermark.getLastFullSyncAt());
+        }
+    }
+}
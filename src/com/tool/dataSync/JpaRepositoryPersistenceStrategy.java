@@ -0,0 +1,37 @@
+package com.tool.dataSync;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * Default {@link SyncPersistenceStrategy}: {@code saveAll} for inserts and updates and {@code deleteAllInBatch} for
+ * deletes, which needs Spring Data JPA 2.5 or later.
+ */
+public class JpaRepositoryPersistenceStrategy<E> implements SyncPersistenceStrategy<E> {
+
+    private final JpaRepository<E, ?> repository;
+
+    public JpaRepositoryPersistenceStrategy(JpaRepository<E, ?> repository) {
+
+        this.repository = repository;
+    }
+
+    @Override
+    public void insert(List<E> entities) {
+
+        repository.saveAll(entities);
+    }
+
+    @Override
+    public void update(List<E> entities) {
+
+        repository.saveAll(entities);
+    }
+
+    @Override
+    public void delete(List<E> entities) {
+
+        repository.deleteAllInBatch(entities);
+    }
+}
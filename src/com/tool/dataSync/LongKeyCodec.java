@@ -0,0 +1,17 @@
+package com.tool.dataSync;
+
+/**
+ * {@link UniqueKeyCodec} for unique objects that fit into 64 bits, e.g. a numeric id or an id and a day number packed
+ * with {@link #pack(int, int)}.
+ */
+public interface LongKeyCodec<Source, Stage> extends UniqueKeyCodec<Source, Stage> {
+
+    long encodeSource(Source source);
+
+    long encodeStage(Stage stage);
+
+    static long pack(int high, int low) {
+
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+}
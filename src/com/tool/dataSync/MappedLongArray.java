@@ -0,0 +1,69 @@
+package com.tool.dataSync;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Zero initialized long array in a memory mapped file, split into chunks of 1GB so it can exceed the 2GB limit of a
+ * single mapping. The file is sparse, untouched pages take no disk space and the page cache holds only what is used.
+ */
+final class MappedLongArray implements Closeable {
+
+    private static final int CHUNK_SHIFT = 27;
+    private static final long CHUNK_LONGS = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_LONGS - 1;
+
+    private final Path file;
+    private final long length;
+    private final LongBuffer[] chunks;
+
+    MappedLongArray(Path file, long length) {
+
+        this.file = file;
+        this.length = length;
+        this.chunks = new LongBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < chunks.length; i++) {
+                long chunkLongs = Math.min(CHUNK_LONGS, length - ((long) i << CHUNK_SHIFT));
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << (CHUNK_SHIFT + 3), chunkLongs << 3);
+                chunks[i] = buffer.asLongBuffer();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("can not map " + file, e);
+        }
+    }
+
+    long length() {
+
+        return length;
+    }
+
+    long get(long index) {
+
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    void set(long index, long value) {
+
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    /**
+     * Deletes the file; the mappings stay valid until they are garbage collected, so nothing may be read afterwards.
+     */
+    @Override
+    public void close() {
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new RuntimeException("can not delete " + file, e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.tool.dataSync;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SyncMetricsListener} publishing to Micrometer: the timer {@code sync.phase} and the counters
+ * {@code sync.rows} and {@code sync.mismatches}, all tagged with the table.
+ */
+public class MicrometerSyncMetricsListener implements SyncMetricsListener {
+
+    private final MeterRegistry registry;
+
+    public MicrometerSyncMetricsListener(MeterRegistry registry) {
+
+        this.registry = registry;
+    }
+
+    @Override
+    public void onPhase(String table, SyncPhase phase, long nanos) {
+
+        Timer.builder("sync.phase").tag("table", table).tag("phase", phase.name().toLowerCase())
+                .register(registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onRows(String table, SyncAction action, long count) {
+
+        Counter.builder("sync.rows").tag("table", table).tag("action", action.name().toLowerCase())
+                .register(registry).increment(count);
+    }
+
+    @Override
+    public void onMismatch(String table, String property, long count) {
+
+        Counter.builder("sync.mismatches").tag("table", table).tag("property", property)
+                .register(registry).increment(count);
+    }
+}
@@ -0,0 +1,20 @@
+package com.tool.dataSync;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link UniqueKeyCodec} for wider unique objects, written as bytes into a reused buffer of
+ * {@link #getMaxKeyLength()} bytes, e.g. a fixed width code followed by an id.
+ */
+public interface PackedKeyCodec<Source, Stage> extends UniqueKeyCodec<Source, Stage> {
+
+    int getMaxKeyLength();
+
+    /**
+     * Writes the key of {@code source} into {@code buffer}, which is cleared before the call and flipped after it.
+     */
+    void encodeSource(Source source, ByteBuffer buffer);
+
+    void encodeStage(Stage stage, ByteBuffer buffer);
+
+}
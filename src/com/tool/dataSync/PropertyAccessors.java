@@ -0,0 +1,227 @@
+package com.tool.dataSync;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Turns bean getters and setters into functional interfaces through {@link LambdaMetafactory}, so property access costs a plain
+ * interface call instead of a reflective invoke. Primitive accessors get primitive functions to avoid boxing.
+ * Falls back to a {@link MethodHandle} when the bean class can not be linked from here (e.g. non-public classes).
+ */
+final class PropertyAccessors {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private PropertyAccessors() {
+    }
+
+    static Map<String, PropertyDescriptor> getPropertyDescriptors(Class<?> beanClass) {
+
+        try {
+            Map<String, PropertyDescriptor> descriptors = new HashMap<>();
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(beanClass).getPropertyDescriptors()) {
+                descriptors.put(descriptor.getName(), descriptor);
+            }
+            return descriptors;
+        } catch (IntrospectionException e) {
+            throw new RuntimeException("can not introspect " + beanClass.getName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> getter(Method readMethod) {
+
+        Function<Object, Object> getter = (Function<Object, Object>) metafactory(readMethod, Function.class, "apply",
+                MethodType.methodType(Object.class, Object.class), boxed(readMethod.getReturnType()));
+        if (getter != null) {
+            return getter;
+        }
+        MethodHandle handle = unreflect(readMethod).asType(MethodType.methodType(Object.class, Object.class));
+        return x -> invoke(handle, x);
+    }
+
+    @SuppressWarnings("unchecked")
+    static ToIntFunction<Object> intGetter(Method readMethod) {
+
+        ToIntFunction<Object> getter = (ToIntFunction<Object>) metafactory(readMethod, ToIntFunction.class, "applyAsInt",
+                MethodType.methodType(int.class, Object.class), int.class);
+        if (getter != null) {
+            return getter;
+        }
+        Function<Object, Object> fallback = getter(readMethod);
+        return x -> {
+            Object value = fallback.apply(x);
+            return value instanceof Character ? (Character) value : ((Number) value).intValue();
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    static ToLongFunction<Object> longGetter(Method readMethod) {
+
+        ToLongFunction<Object> getter = (ToLongFunction<Object>) metafactory(readMethod, ToLongFunction.class, "applyAsLong",
+                MethodType.methodType(long.class, Object.class), long.class);
+        if (getter != null) {
+            return getter;
+        }
+        Function<Object, Object> fallback = getter(readMethod);
+        return x -> ((Number) fallback.apply(x)).longValue();
+    }
+
+    /**
+     * Also used for float getters, the float to double widening is exact.
+     */
+    @SuppressWarnings("unchecked")
+    static ToDoubleFunction<Object> doubleGetter(Method readMethod) {
+
+        ToDoubleFunction<Object> getter = (ToDoubleFunction<Object>) metafactory(readMethod, ToDoubleFunction.class, "applyAsDouble",
+                MethodType.methodType(double.class, Object.class), double.class);
+        if (getter != null) {
+            return getter;
+        }
+        Function<Object, Object> fallback = getter(readMethod);
+        return x -> ((Number) fallback.apply(x)).doubleValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Predicate<Object> booleanGetter(Method readMethod) {
+
+        Predicate<Object> getter = (Predicate<Object>) metafactory(readMethod, Predicate.class, "test",
+                MethodType.methodType(boolean.class, Object.class), boolean.class);
+        if (getter != null) {
+            return getter;
+        }
+        Function<Object, Object> fallback = getter(readMethod);
+        return x -> (Boolean) fallback.apply(x);
+    }
+
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Object> setter(Method writeMethod) {
+
+        Class<?> type = boxed(writeMethod.getParameterTypes()[0]);
+        BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) metafactory(writeMethod, BiConsumer.class, "accept",
+                MethodType.methodType(void.class, Object.class, Object.class), MethodType.methodType(void.class, writeMethod.getDeclaringClass(), type));
+        if (setter != null) {
+            return setter;
+        }
+        MethodHandle handle = unreflect(writeMethod).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        return (x, value) -> invoke(handle, x, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static ObjIntConsumer<Object> intSetter(Method writeMethod) {
+
+        ObjIntConsumer<Object> setter = (ObjIntConsumer<Object>) metafactory(writeMethod, ObjIntConsumer.class, "accept",
+                MethodType.methodType(void.class, Object.class, int.class), MethodType.methodType(void.class, writeMethod.getDeclaringClass(), int.class));
+        if (setter != null) {
+            return setter;
+        }
+        BiConsumer<Object, Object> fallback = setter(writeMethod);
+        return fallback::accept;
+    }
+
+    @SuppressWarnings("unchecked")
+    static ObjLongConsumer<Object> longSetter(Method writeMethod) {
+
+        ObjLongConsumer<Object> setter = (ObjLongConsumer<Object>) metafactory(writeMethod, ObjLongConsumer.class, "accept",
+                MethodType.methodType(void.class, Object.class, long.class), MethodType.methodType(void.class, writeMethod.getDeclaringClass(), long.class));
+        if (setter != null) {
+            return setter;
+        }
+        BiConsumer<Object, Object> fallback = setter(writeMethod);
+        return fallback::accept;
+    }
+
+    @SuppressWarnings("unchecked")
+    static ObjDoubleConsumer<Object> doubleSetter(Method writeMethod) {
+
+        ObjDoubleConsumer<Object> setter = (ObjDoubleConsumer<Object>) metafactory(writeMethod, ObjDoubleConsumer.class, "accept",
+                MethodType.methodType(void.class, Object.class, double.class), MethodType.methodType(void.class, writeMethod.getDeclaringClass(), double.class));
+        if (setter != null) {
+            return setter;
+        }
+        BiConsumer<Object, Object> fallback = setter(writeMethod);
+        return fallback::accept;
+    }
+
+    private static Object metafactory(Method method, Class<?> functionalInterface, String methodName,
+                                      MethodType erasedType, Class<?> returnType) {
+
+        return metafactory(method, functionalInterface, methodName, erasedType, MethodType.methodType(returnType, method.getDeclaringClass()));
+    }
+
+    private static Object metafactory(Method method, Class<?> functionalInterface, String methodName,
+                                      MethodType erasedType, MethodType instantiatedType) {
+
+        Class<?> declaringClass = method.getDeclaringClass();
+        if (!Modifier.isPublic(declaringClass.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, methodName, MethodType.methodType(functionalInterface),
+                    erasedType, handle, instantiatedType);
+            return callSite.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+
+        try {
+            method.setAccessible(true);
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("can not access " + method, e);
+        }
+    }
+
+    private static Object invoke(MethodHandle handle, Object bean) {
+
+        try {
+            return handle.invoke(bean);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void invoke(MethodHandle handle, Object bean, Object value) {
+
+        try {
+            handle.invoke(bean, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
@@ -0,0 +1,581 @@
+package com.tool.dataSync;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Comparison of a source row against a stage row, built once per (Source, Stage) class pair and cached.
+ * Compares every declared source field that is not annotated with {@link IgnoreCompare}, rounding source floats
+ * the same way {@link ValueNormalizer} does, or normalizing both sides as declared by {@link ComparePrecision}.
+ * Fields of the same primitive type on both sides are compared unboxed.
+ * <p>
+ * Static and synthetic fields are not compared. The reflective comparison before also went through them, but
+ * could never read them as a property, so a source class with e.g. a {@code serialVersionUID} had every row
+ * reported as changed.
+ */
+@Slf4j
+final class PropertyComparisonPlan {
+
+    private static final ConcurrentMap<Pair<Class<?>, Class<?>>, PropertyComparisonPlan> PLANS = new ConcurrentHashMap<>();
+
+    @Getter
+    private final PropertyComparator[] comparators;
+
+    /**
+     * False when a property can never compare equal or compares within a tolerance, a {@link RowDigest} would then
+     * disagree with the comparison.
+     */
+    @Getter
+    private final boolean digestable;
+
+    private PropertyComparisonPlan(PropertyComparator[] comparators) {
+
+        this.comparators = comparators;
+        this.digestable = Arrays.stream(comparators).allMatch(PropertyComparator::isDigestable);
+    }
+
+    static PropertyComparisonPlan of(Class<?> sourceClass, Class<?> stageClass) {
+
+        return PLANS.computeIfAbsent(Pair.create(sourceClass, stageClass), x -> build(x.getFirst(), x.getSecond()));
+    }
+
+    private static PropertyComparisonPlan build(Class<?> sourceClass, Class<?> stageClass) {
+
+        Map<String, PropertyDescriptor> sourceDescriptors = PropertyAccessors.getPropertyDescriptors(sourceClass);
+        Map<String, PropertyDescriptor> stageDescriptors = PropertyAccessors.getPropertyDescriptors(stageClass);
+        List<PropertyComparator> comparators = new ArrayList<>();
+        for (Field field : sourceClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic() || field.isAnnotationPresent(IgnoreCompare.class)) {
+                continue;
+            }
+            ComparePrecision precision = field.getAnnotation(ComparePrecision.class);
+            comparators.add(createComparator(field.getName(), readMethod(sourceDescriptors, field.getName()),
+                    readMethod(stageDescriptors, field.getName()), precision == null ? null : new FieldPrecision(precision)));
+        }
+        return new PropertyComparisonPlan(comparators.toArray(new PropertyComparator[0]));
+    }
+
+    private static Method readMethod(Map<String, PropertyDescriptor> descriptors, String name) {
+
+        PropertyDescriptor descriptor = descriptors.get(name);
+        return descriptor == null ? null : descriptor.getReadMethod();
+    }
+
+    private static PropertyComparator createComparator(String name, Method sourceGetter, Method stageGetter, FieldPrecision precision) {
+
+        if (sourceGetter == null || stageGetter == null) {
+            log.error("property {} is not readable on both source and stage, it will always be reported as changed", name);
+            return new MissingPropertyComparator(name);
+        }
+        Class<?> type = sourceGetter.getReturnType();
+        if (precision != null) {
+            if ((type == float.class || type == double.class) && type == stageGetter.getReturnType()) {
+                return new PrecisionNumberComparator(name, PropertyAccessors.doubleGetter(sourceGetter),
+                        PropertyAccessors.doubleGetter(stageGetter), precision, type == float.class);
+            }
+            return new PrecisionObjectComparator(name, PropertyAccessors.getter(sourceGetter), PropertyAccessors.getter(stageGetter), precision);
+        }
+        if (type.isPrimitive() && type == stageGetter.getReturnType()) {
+            if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+                return new IntComparator(name, PropertyAccessors.intGetter(sourceGetter), PropertyAccessors.intGetter(stageGetter));
+            } else if (type == long.class) {
+                return new LongComparator(name, PropertyAccessors.longGetter(sourceGetter), PropertyAccessors.longGetter(stageGetter));
+            } else if (type == float.class) {
+                return new FloatComparator(name, PropertyAccessors.doubleGetter(sourceGetter), PropertyAccessors.doubleGetter(stageGetter));
+            } else if (type == double.class) {
+                return new DoubleComparator(name, PropertyAccessors.doubleGetter(sourceGetter), PropertyAccessors.doubleGetter(stageGetter));
+            } else if (type == boolean.class) {
+                return new BooleanComparator(name, PropertyAccessors.booleanGetter(sourceGetter), PropertyAccessors.booleanGetter(stageGetter));
+            }
+        }
+        return new ObjectComparator(name, PropertyAccessors.getter(sourceGetter), PropertyAccessors.getter(stageGetter));
+    }
+
+    /**
+     * Compares one property; {@link #differs(Object, Object)} follows the boxed {@code equals} semantics of the
+     * original reflective comparison.
+     */
+    abstract static class PropertyComparator {
+
+        @Getter
+        private final String name;
+
+        PropertyComparator(String name) {
+
+            this.name = name;
+        }
+
+        abstract boolean differs(Object source, Object stage);
+
+        abstract Object getSourceValue(Object source);
+
+        abstract Object getStageValue(Object stage);
+
+        /**
+         * {@link RowDigest} hash of the normalized source value, equal to {@link #stageDigest(Object)} whenever
+         * {@link #differs(Object, Object)} is false.
+         */
+        abstract long sourceDigest(Object source);
+
+        abstract long stageDigest(Object stage);
+
+        boolean isDigestable() {
+
+            return true;
+        }
+    }
+
+    private static final class ObjectComparator extends PropertyComparator {
+
+        private final Function<Object, Object> sourceGetter;
+        private final Function<Object, Object> stageGetter;
+
+        ObjectComparator(String name, Function<Object, Object> sourceGetter, Function<Object, Object> stageGetter) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            Object sourceValue = sourceGetter.apply(source);
+            Object stageValue = stageGetter.apply(stage);
+            if (sourceValue == stageValue) {
+                return false;
+            } else if (sourceValue instanceof Float) {
+                return !(stageValue instanceof Float)
+                        || Float.floatToIntBits(ValueNormalizer.roundFloat((Float) sourceValue)) != Float.floatToIntBits((Float) stageValue);
+            } else if (sourceValue != null && stageValue != null) {
+                return !sourceValue.equals(stageValue);
+            }
+            return true;
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return sourceGetter.apply(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return stageGetter.apply(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            Object sourceValue = sourceGetter.apply(source);
+            if (sourceValue instanceof Float) {
+                return RowDigest.hashFloat(ValueNormalizer.roundFloat((Float) sourceValue));
+            }
+            return RowDigest.hash(sourceValue);
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hash(stageGetter.apply(stage));
+        }
+    }
+
+    private static final class IntComparator extends PropertyComparator {
+
+        private final ToIntFunction<Object> sourceGetter;
+        private final ToIntFunction<Object> stageGetter;
+
+        IntComparator(String name, ToIntFunction<Object> sourceGetter, ToIntFunction<Object> stageGetter) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return sourceGetter.applyAsInt(source) != stageGetter.applyAsInt(stage);
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return sourceGetter.applyAsInt(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return stageGetter.applyAsInt(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return RowDigest.hashInt(sourceGetter.applyAsInt(source));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hashInt(stageGetter.applyAsInt(stage));
+        }
+    }
+
+    private static final class LongComparator extends PropertyComparator {
+
+        private final ToLongFunction<Object> sourceGetter;
+        private final ToLongFunction<Object> stageGetter;
+
+        LongComparator(String name, ToLongFunction<Object> sourceGetter, ToLongFunction<Object> stageGetter) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return sourceGetter.applyAsLong(source) != stageGetter.applyAsLong(stage);
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return sourceGetter.applyAsLong(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return stageGetter.applyAsLong(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return RowDigest.hashLong(sourceGetter.applyAsLong(source));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hashLong(stageGetter.applyAsLong(stage));
+        }
+    }
+
+    private static final class FloatComparator extends PropertyComparator {
+
+        private final ToDoubleFunction<Object> sourceGetter;
+        private final ToDoubleFunction<Object> stageGetter;
+
+        FloatComparator(String name, ToDoubleFunction<Object> sourceGetter, ToDoubleFunction<Object> stageGetter) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            float sourceValue = ValueNormalizer.roundFloat((float) sourceGetter.applyAsDouble(source));
+            return Float.floatToIntBits(sourceValue) != Float.floatToIntBits((float) stageGetter.applyAsDouble(stage));
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return (float) sourceGetter.applyAsDouble(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return (float) stageGetter.applyAsDouble(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return RowDigest.hashFloat(ValueNormalizer.roundFloat((float) sourceGetter.applyAsDouble(source)));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hashFloat((float) stageGetter.applyAsDouble(stage));
+        }
+    }
+
+    private static final class DoubleComparator extends PropertyComparator {
+
+        private final ToDoubleFunction<Object> sourceGetter;
+        private final ToDoubleFunction<Object> stageGetter;
+
+        DoubleComparator(String name, ToDoubleFunction<Object> sourceGetter, ToDoubleFunction<Object> stageGetter) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return Double.doubleToLongBits(sourceGetter.applyAsDouble(source)) != Double.doubleToLongBits(stageGetter.applyAsDouble(stage));
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return sourceGetter.applyAsDouble(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return stageGetter.applyAsDouble(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return RowDigest.hashDouble(sourceGetter.applyAsDouble(source));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hashDouble(stageGetter.applyAsDouble(stage));
+        }
+    }
+
+    private static final class BooleanComparator extends PropertyComparator {
+
+        private final Predicate<Object> sourceGetter;
+        private final Predicate<Object> stageGetter;
+
+        BooleanComparator(String name, Predicate<Object> sourceGetter, Predicate<Object> stageGetter) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return sourceGetter.test(source) != stageGetter.test(stage);
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return sourceGetter.test(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return stageGetter.test(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return RowDigest.hashBoolean(sourceGetter.test(source));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hashBoolean(stageGetter.test(stage));
+        }
+    }
+
+    private static final class PrecisionObjectComparator extends PropertyComparator {
+
+        private final Function<Object, Object> sourceGetter;
+        private final Function<Object, Object> stageGetter;
+        private final FieldPrecision precision;
+
+        PrecisionObjectComparator(String name, Function<Object, Object> sourceGetter, Function<Object, Object> stageGetter,
+                                  FieldPrecision precision) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+            this.precision = precision;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return precision.differs(sourceGetter.apply(source), stageGetter.apply(stage));
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return sourceGetter.apply(source);
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return stageGetter.apply(stage);
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return RowDigest.hash(precision.normalize(sourceGetter.apply(source)));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return RowDigest.hash(precision.normalize(stageGetter.apply(stage)));
+        }
+
+        @Override
+        boolean isDigestable() {
+
+            return precision.isExact();
+        }
+    }
+
+    /**
+     * Primitive float or double on both sides, rounded on both sides as declared by {@link ComparePrecision}.
+     */
+    private static final class PrecisionNumberComparator extends PropertyComparator {
+
+        private final ToDoubleFunction<Object> sourceGetter;
+        private final ToDoubleFunction<Object> stageGetter;
+        private final FieldPrecision precision;
+        private final boolean floatType;
+
+        PrecisionNumberComparator(String name, ToDoubleFunction<Object> sourceGetter, ToDoubleFunction<Object> stageGetter,
+                                  FieldPrecision precision, boolean floatType) {
+
+            super(name);
+            this.sourceGetter = sourceGetter;
+            this.stageGetter = stageGetter;
+            this.precision = precision;
+            this.floatType = floatType;
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return precision.differs(this.round(sourceGetter.applyAsDouble(source)), this.round(stageGetter.applyAsDouble(stage)));
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            double value = sourceGetter.applyAsDouble(source);
+            return floatType ? (Object) (float) value : (Object) value;
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            double value = stageGetter.applyAsDouble(stage);
+            return floatType ? (Object) (float) value : (Object) value;
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return this.digest(this.round(sourceGetter.applyAsDouble(source)));
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return this.digest(this.round(stageGetter.applyAsDouble(stage)));
+        }
+
+        @Override
+        boolean isDigestable() {
+
+            return precision.isExact();
+        }
+
+        private double round(double value) {
+
+            return floatType ? precision.round((float) value) : precision.round(value);
+        }
+
+        private long digest(double value) {
+
+            return floatType ? RowDigest.hashFloat((float) value) : RowDigest.hashDouble(value);
+        }
+    }
+
+    private static final class MissingPropertyComparator extends PropertyComparator {
+
+        MissingPropertyComparator(String name) {
+
+            super(name);
+        }
+
+        @Override
+        boolean differs(Object source, Object stage) {
+
+            return true;
+        }
+
+        @Override
+        Object getSourceValue(Object source) {
+
+            return null;
+        }
+
+        @Override
+        Object getStageValue(Object stage) {
+
+            return null;
+        }
+
+        @Override
+        long sourceDigest(Object source) {
+
+            return 0;
+        }
+
+        @Override
+        long stageDigest(Object stage) {
+
+            return 0;
+        }
+
+        @Override
+        boolean isDigestable() {
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.tool.dataSync;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * 64-bit digest of a row over the properties of a {@link PropertyComparisonPlan}. Values are hashed after the same
+ * normalization the plan compares with, and tagged with their type the way {@code equals} tells them apart, so
+ * two rows the plan considers equal always get the same digest. The hash only depends on values, never on
+ * identity hash codes of known types, so stored digests stay valid across JVMs.
+ */
+final class RowDigest {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long NULL_HASH = 0x9e3779b97f4a7c15L;
+    private static final long STRING_TAG = fnv(String.class.getName());
+    private static final long DATE_TAG = fnv(Date.class.getName());
+    private static final long TIMESTAMP_TAG = fnv(Timestamp.class.getName());
+    private static final long INTEGER_TAG = fnv(Integer.class.getName());
+    private static final long LONG_TAG = fnv(Long.class.getName());
+    private static final long SHORT_TAG = fnv(Short.class.getName());
+    private static final long BYTE_TAG = fnv(Byte.class.getName());
+    private static final long FLOAT_TAG = fnv(Float.class.getName());
+    private static final long DOUBLE_TAG = fnv(Double.class.getName());
+    private static final long BOOLEAN_TAG = fnv(Boolean.class.getName());
+    private static final long CHARACTER_TAG = fnv(Character.class.getName());
+    private static final long BIG_DECIMAL_TAG = fnv(BigDecimal.class.getName());
+
+    private RowDigest() {
+    }
+
+    static long ofSource(PropertyComparisonPlan plan, Object source) {
+
+        long digest = FNV_OFFSET;
+        for (PropertyComparisonPlan.PropertyComparator comparator : plan.getComparators()) {
+            digest = (digest ^ comparator.sourceDigest(source)) * FNV_PRIME;
+        }
+        return mix(digest);
+    }
+
+    static long ofStage(PropertyComparisonPlan plan, Object stage) {
+
+        long digest = FNV_OFFSET;
+        for (PropertyComparisonPlan.PropertyComparator comparator : plan.getComparators()) {
+            digest = (digest ^ comparator.stageDigest(stage)) * FNV_PRIME;
+        }
+        return mix(digest);
+    }
+
+    static long hash(Object value) {
+
+        if (value == null) {
+            return NULL_HASH;
+        } else if (value instanceof String) {
+            return hash(STRING_TAG, fnv((String) value));
+        } else if (value instanceof Timestamp) {
+            // Timestamp.equals only accepts Timestamps, while Date.equals accepts any Date with the same time
+            return hash(TIMESTAMP_TAG, 31L * ((Timestamp) value).getTime() + ((Timestamp) value).getNanos());
+        } else if (value instanceof Date) {
+            return hash(DATE_TAG, ((Date) value).getTime());
+        } else if (value instanceof Integer) {
+            return hash(INTEGER_TAG, (Integer) value);
+        } else if (value instanceof Long) {
+            return hash(LONG_TAG, (Long) value);
+        } else if (value instanceof Float) {
+            return hash(FLOAT_TAG, Float.floatToIntBits((Float) value));
+        } else if (value instanceof Double) {
+            return hash(DOUBLE_TAG, Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Boolean) {
+            return hash(BOOLEAN_TAG, (Boolean) value ? 1 : 0);
+        } else if (value instanceof Short) {
+            return hash(SHORT_TAG, (Short) value);
+        } else if (value instanceof Byte) {
+            return hash(BYTE_TAG, (Byte) value);
+        } else if (value instanceof Character) {
+            return hash(CHARACTER_TAG, (Character) value);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return hash(BIG_DECIMAL_TAG, 31L * decimal.unscaledValue().hashCode() + decimal.scale());
+        } else if (value instanceof Enum) {
+            return hash(fnv(((Enum<?>) value).getDeclaringClass().getName()), fnv(((Enum<?>) value).name()));
+        }
+        return hash(fnv(value.getClass().getName()), value.hashCode());
+    }
+
+    static long hashInt(int value) {
+
+        return hash(INTEGER_TAG, value);
+    }
+
+    static long hashLong(long value) {
+
+        return hash(LONG_TAG, value);
+    }
+
+    static long hashFloat(float value) {
+
+        return hash(FLOAT_TAG, Float.floatToIntBits(value));
+    }
+
+    static long hashDouble(double value) {
+
+        return hash(DOUBLE_TAG, Double.doubleToLongBits(value));
+    }
+
+    static long hashBoolean(boolean value) {
+
+        return hash(BOOLEAN_TAG, value ? 1 : 0);
+    }
+
+    private static long hash(long tag, long value) {
+
+        return mix(tag ^ mix(value));
+    }
+
+    private static long fnv(String value) {
+
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long value) {
+
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -0,0 +1,127 @@
+package com.tool.dataSync;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Walks two iterators that are both sorted by unique key and hands out one {@link KeyGroup} per distinct key,
+ * so only the rows of a single key are held in memory at any time.
+ */
+class SortedMergeJoin<Source, Stage> implements Iterator<SortedMergeJoin.KeyGroup<Source, Stage>> {
+
+    private final Iterator<Source> sources;
+    private final Iterator<Stage> stages;
+    private final Function<Source, Object> sourceKeyFunction;
+    private final Function<Stage, Object> stageKeyFunction;
+    private final Comparator<Object> keyComparator;
+
+    private Source nextSource;
+    private Object nextSourceKey;
+    private boolean sourcePending;
+    private Stage nextStage;
+    private Object nextStageKey;
+    private boolean stagePending;
+
+    SortedMergeJoin(Iterator<Source> sources, Iterator<Stage> stages, Function<Source, Object> sourceKeyFunction,
+                    Function<Stage, Object> stageKeyFunction, Comparator<Object> keyComparator) {
+
+        this.sources = sources;
+        this.stages = stages;
+        this.sourceKeyFunction = sourceKeyFunction;
+        this.stageKeyFunction = stageKeyFunction;
+        this.keyComparator = keyComparator;
+        this.advanceSource();
+        this.advanceStage();
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        return sourcePending || stagePending;
+    }
+
+    @Override
+    public KeyGroup<Source, Stage> next() {
+
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object key = this.currentKey();
+        List<Source> groupSources = new ArrayList<>(1);
+        while (sourcePending && keyComparator.compare(nextSourceKey, key) == 0) {
+            groupSources.add(nextSource);
+            this.advanceSource();
+        }
+        List<Stage> groupStages = new ArrayList<>(1);
+        while (stagePending && keyComparator.compare(nextStageKey, key) == 0) {
+            groupStages.add(nextStage);
+            this.advanceStage();
+        }
+        return new KeyGroup<>(key, groupSources, groupStages);
+    }
+
+    private Object currentKey() {
+
+        if (!sourcePending) {
+            return nextStageKey;
+        }
+        if (!stagePending) {
+            return nextSourceKey;
+        }
+        return keyComparator.compare(nextSourceKey, nextStageKey) <= 0 ? nextSourceKey : nextStageKey;
+    }
+
+    private void advanceSource() {
+
+        Object previousKey = nextSourceKey;
+        sourcePending = sources.hasNext();
+        if (sourcePending) {
+            nextSource = sources.next();
+            nextSourceKey = sourceKeyFunction.apply(nextSource);
+            this.checkOrder("source", previousKey, nextSourceKey);
+        } else {
+            nextSource = null;
+        }
+    }
+
+    private void advanceStage() {
+
+        Object previousKey = nextStageKey;
+        stagePending = stages.hasNext();
+        if (stagePending) {
+            nextStage = stages.next();
+            nextStageKey = stageKeyFunction.apply(nextStage);
+            this.checkOrder("stage", previousKey, nextStageKey);
+        } else {
+            nextStage = null;
+        }
+    }
+
+    private void checkOrder(String side, Object previousKey, Object key) {
+
+        if (previousKey != null && keyComparator.compare(previousKey, key) > 0) {
+            throw new RuntimeException(side + " data is not sorted by unique key, " + previousKey + " is followed by " + key);
+        }
+    }
+
+    @Getter
+    static final class KeyGroup<Source, Stage> {
+
+        private final Object key;
+        private final List<Source> sources;
+        private final List<Stage> stages;
+
+        KeyGroup(Object key, List<Source> sources, List<Stage> stages) {
+
+            this.key = key;
+            this.sources = sources;
+            this.stages = stages;
+        }
+    }
+}
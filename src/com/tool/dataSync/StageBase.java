@@ -8,6 +8,7 @@ import lombok.Data;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.util.Date;
+import java.util.Set;
 
 /**
  * Created by peterchen on 31/07/2018.
@@ -32,4 +33,10 @@ public abstract class StageBase implements CreatableAndUpdatable {
     @Transient
     private int action;
 
+    /**
+     * Properties changed by the sync, set on updated rows; null when unknown, which means all of them.
+     */
+    @Transient
+    private Set<String> dirtyProperties;
+
 }
@@ -0,0 +1,28 @@
+package com.tool.dataSync;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Stage rows of a diff, indexed by unique object. A stage row is unmatched while its action is still
+ * {@link SyncAction#DELETE}; matched rows never become unmatched again.
+ */
+interface StageIndex<Source, Stage extends StageBase> {
+
+    /**
+     * First unmatched stage row of the unique object of {@code source} that {@code sameKey} accepts, else the first
+     * unmatched one; null when there is none.
+     */
+    Stage findUnmatched(Source source, BiPredicate<Source, Stage> sameKey);
+
+    /**
+     * Adds the stage row inserted for {@code source}.
+     */
+    void addInsert(Source source, Stage stage);
+
+    /**
+     * All stage rows, the inserted ones included.
+     */
+    List<Stage> getRows();
+
+}
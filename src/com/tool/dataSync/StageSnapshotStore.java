@@ -0,0 +1,309 @@
+package com.tool.dataSync;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stage rows of a diff kept off heap, for tables that do not fit into the heap of the sync job. Rows are appended once
+ * in the {@link BinaryStageCodec} format to a memory mapped data file and indexed by their {@link LongKeyCodec} key
+ * in a mapped open addressing table; the diff looks rows up, compares digests and marks actions in place, and only
+ * rows that change are turned back into entities. Not thread safe.
+ * <p>
+ * A record is {@code key(8) next(8) digest(8) flags(1) action(1) length(4) payload}; {@code next} chains the rows of
+ * one key in append order. Records never cross a segment of {@link #SEGMENT_SIZE} bytes, so every one is read from a
+ * single mapping.
+ */
+public final class StageSnapshotStore<Source, Stage extends StageBase> implements Closeable {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final long OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    private static final int KEY = 0;
+    private static final int NEXT = 8;
+    private static final int DIGEST = 16;
+    private static final int FLAGS = 24;
+    private static final int ACTION = 25;
+    private static final int LENGTH = 26;
+    private static final int HEADER_SIZE = 30;
+
+    private static final byte HAS_DIGEST = 1;
+
+    /**
+     * Longs per index slot: key, first record + 1 and last record + 1; a slot is empty while its first record is 0.
+     */
+    private static final int SLOT_LONGS = 3;
+
+    private final LongKeyCodec<Source, Stage> keyCodec;
+    private final BinaryStageCodec<Stage> stageCodec;
+    private final ToLongFunction<Stage> digestFunction;
+    private final FileChannel dataChannel;
+    private final Path dataFile;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<Integer> segmentLengths = new ArrayList<>();
+    private final long[] candidates = new long[16];
+
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private MappedLongArray index;
+    private long mask;
+    private long keys;
+    private long rows;
+    private int indexGeneration;
+
+    /**
+     * @param digestFunction digest stored with every row for {@link #matchesDigest(long, long)}, may be null
+     */
+    StageSnapshotStore(Path directory, LongKeyCodec<Source, Stage> keyCodec, Class<?> stageClass, Supplier<Stage> stageFactory,
+                       ToLongFunction<Stage> digestFunction, long expectedRows) {
+
+        this.keyCodec = keyCodec;
+        this.stageCodec = new BinaryStageCodec<>(stageClass, stageFactory);
+        this.digestFunction = digestFunction;
+        try {
+            Files.createDirectories(directory);
+            this.dataFile = Files.createTempFile(directory, "stage", ".dat");
+            this.dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException("can not create stage snapshot in " + directory, e);
+        }
+        long capacity = Long.highestOneBit(Math.max(16, expectedRows) * 2 - 1) << 1;
+        this.index = this.newIndex(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public long size() {
+
+        return rows;
+    }
+
+    public void append(Stage stage) {
+
+        long key = keyCodec.encodeStage(stage);
+        ByteBuffer payload = this.encode(stage);
+        int recordSize = HEADER_SIZE + payload.remaining();
+        if (recordSize > SEGMENT_SIZE) {
+            throw new RuntimeException("stage row of " + recordSize + " bytes does not fit into a snapshot segment");
+        }
+        int segment = segments.size() - 1;
+        if (segment < 0 || segmentLengths.get(segment) + recordSize > SEGMENT_SIZE) {
+            segment = this.addSegment();
+        }
+        int offset = segmentLengths.get(segment);
+        MappedByteBuffer buffer = segments.get(segment);
+        buffer.putLong(offset + KEY, key);
+        buffer.putLong(offset + NEXT, 0);
+        buffer.putLong(offset + DIGEST, digestFunction == null ? 0 : digestFunction.applyAsLong(stage));
+        buffer.put(offset + FLAGS, digestFunction == null ? 0 : HAS_DIGEST);
+        buffer.put(offset + ACTION, (byte) SyncAction.DELETE.getCode());
+        buffer.putInt(offset + LENGTH, payload.remaining());
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + HEADER_SIZE);
+        target.put(payload);
+        segmentLengths.set(segment, offset + recordSize);
+        long address = ((long) segment << SEGMENT_SHIFT) | offset;
+        rows++;
+
+        long slot = this.findSlot(key);
+        long tail = index.get(slot * SLOT_LONGS + 2);
+        if (tail == 0) {
+            index.set(slot * SLOT_LONGS, key);
+            index.set(slot * SLOT_LONGS + 1, address + 1);
+            index.set(slot * SLOT_LONGS + 2, address + 1);
+            if (++keys > (mask + 1) / 4 * 3) {
+                this.rehash();
+            }
+        } else {
+            this.segmentOf(tail - 1).putLong(this.offsetOf(tail - 1) + NEXT, address + 1);
+            index.set(slot * SLOT_LONGS + 2, address + 1);
+        }
+    }
+
+    /**
+     * Address of the first unmatched row of the key of {@code source} that {@code sameKey} accepts, else of the first
+     * unmatched one; -1 when there is none. Rows are only materialized when more than one of them is unmatched.
+     */
+    long findUnmatched(Source source, BiPredicate<Source, Stage> sameKey) {
+
+        long key = keyCodec.encodeSource(source);
+        long head = index.get(this.findSlot(key) * SLOT_LONGS + 1);
+        int count = 0;
+        long[] unmatched = candidates;
+        for (long next = head; next != 0; ) {
+            long address = next - 1;
+            MappedByteBuffer buffer = this.segmentOf(address);
+            int offset = this.offsetOf(address);
+            if (buffer.get(offset + ACTION) == SyncAction.DELETE.getCode()) {
+                if (count == unmatched.length) {
+                    unmatched = Arrays.copyOf(unmatched, count * 2);
+                }
+                unmatched[count++] = address;
+            }
+            next = buffer.getLong(offset + NEXT);
+        }
+        if (count == 0) {
+            return -1;
+        }
+        if (count > 1) {
+            for (int i = 0; i < count; i++) {
+                if (sameKey.test(source, this.materialize(unmatched[i]))) {
+                    return unmatched[i];
+                }
+            }
+        }
+        return unmatched[0];
+    }
+
+    /**
+     * True when the row at {@code address} was stored with a digest equal to {@code digest}.
+     */
+    boolean matchesDigest(long address, long digest) {
+
+        MappedByteBuffer buffer = this.segmentOf(address);
+        int offset = this.offsetOf(address);
+        return (buffer.get(offset + FLAGS) & HAS_DIGEST) != 0 && buffer.getLong(offset + DIGEST) == digest;
+    }
+
+    /**
+     * Stores the {@link SyncAction} code of the row at {@code address}; rows marked other than
+     * {@link SyncAction#DELETE} are matched.
+     */
+    void mark(long address, int action) {
+
+        this.segmentOf(address).put(this.offsetOf(address) + ACTION, (byte) action);
+    }
+
+    Stage materialize(long address) {
+
+        MappedByteBuffer buffer = this.segmentOf(address);
+        int offset = this.offsetOf(address);
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset + HEADER_SIZE);
+        payload.limit(offset + HEADER_SIZE + buffer.getInt(offset + LENGTH));
+        Stage stage = stageCodec.read(payload);
+        stage.setAction(buffer.get(offset + ACTION));
+        return stage;
+    }
+
+    /**
+     * Materializes the rows that are still unmatched, in append order.
+     */
+    void forEachUnmatched(Consumer<Stage> action) {
+
+        for (int segment = 0; segment < segments.size(); segment++) {
+            MappedByteBuffer buffer = segments.get(segment);
+            int length = segmentLengths.get(segment);
+            for (int offset = 0; offset < length; offset += HEADER_SIZE + buffer.getInt(offset + LENGTH)) {
+                if (buffer.get(offset + ACTION) == SyncAction.DELETE.getCode()) {
+                    action.accept(this.materialize(((long) segment << SEGMENT_SHIFT) | offset));
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the files of the snapshot.
+     */
+    @Override
+    public void close() {
+
+        segments.clear();
+        index.close();
+        try {
+            dataChannel.close();
+            Files.deleteIfExists(dataFile);
+        } catch (IOException e) {
+            throw new RuntimeException("can not delete " + dataFile, e);
+        }
+    }
+
+    private ByteBuffer encode(Stage stage) {
+
+        scratch.clear();
+        while (stageCodec.write(stage, scratch) == null) {
+            scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+        }
+        scratch.flip();
+        return scratch;
+    }
+
+    private int addSegment() {
+
+        int segment = segments.size();
+        try {
+            segments.add(dataChannel.map(FileChannel.MapMode.READ_WRITE, (long) segment << SEGMENT_SHIFT, SEGMENT_SIZE));
+        } catch (IOException e) {
+            throw new RuntimeException("can not map segment " + segment + " of " + dataFile, e);
+        }
+        segmentLengths.add(0);
+        return segment;
+    }
+
+    private MappedByteBuffer segmentOf(long address) {
+
+        return segments.get((int) (address >>> SEGMENT_SHIFT));
+    }
+
+    private int offsetOf(long address) {
+
+        return (int) (address & OFFSET_MASK);
+    }
+
+    /**
+     * Slot of {@code key}, or the empty slot it would take.
+     */
+    private long findSlot(long key) {
+
+        long slot = mix(key) & mask;
+        while (index.get(slot * SLOT_LONGS + 1) != 0 && index.get(slot * SLOT_LONGS) != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+
+        MappedLongArray previous = index;
+        long capacity = (mask + 1) * 2;
+        index = this.newIndex(capacity);
+        mask = capacity - 1;
+        for (long slot = 0; slot < previous.length() / SLOT_LONGS; slot++) {
+            long head = previous.get(slot * SLOT_LONGS + 1);
+            if (head != 0) {
+                long key = previous.get(slot * SLOT_LONGS);
+                long target = this.findSlot(key);
+                index.set(target * SLOT_LONGS, key);
+                index.set(target * SLOT_LONGS + 1, head);
+                index.set(target * SLOT_LONGS + 2, previous.get(slot * SLOT_LONGS + 2));
+            }
+        }
+        previous.close();
+    }
+
+    private MappedLongArray newIndex(long capacity) {
+
+        return new MappedLongArray(dataFile.resolveSibling(dataFile.getFileName() + ".index" + indexGeneration++), capacity * SLOT_LONGS);
+    }
+
+    private static long mix(long key) {
+
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb3f94a6a0bd5L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
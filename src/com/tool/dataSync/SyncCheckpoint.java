@@ -0,0 +1,26 @@
+package com.tool.dataSync;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Progress of a chunked sync: the last unique object committed and the row counts committed so far.
+ */
+@Data
+public class SyncCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String table;
+
+    private Object lastUniqueObj;
+
+    private long sourceSize;
+
+    private long liveSize;
+
+    private Date updatedAt;
+
+}
@@ -0,0 +1,15 @@
+package com.tool.dataSync;
+
+/**
+ * Keeps {@link SyncCheckpoint}s between runs. {@link #save(SyncCheckpoint)} is called inside the transaction of the
+ * chunk it describes, so a store writing to the same database commits or rolls back together with the chunk.
+ */
+public interface SyncCheckpointStore {
+
+    SyncCheckpoint load(String table);
+
+    void save(SyncCheckpoint checkpoint);
+
+    void clear(String table);
+
+}
@@ -0,0 +1,22 @@
+package com.tool.dataSync;
+
+/**
+ * Receives the figures of a finished sync run, once per run and table: the time spent in every phase, the number of
+ * rows per {@link SyncAction} ({@link SyncAction#DEFAULT} being the unchanged rows) and the number of mismatches
+ * found per compared property.
+ */
+public interface SyncMetricsListener {
+
+    SyncMetricsListener NOOP = new SyncMetricsListener() {
+    };
+
+    default void onPhase(String table, SyncPhase phase, long nanos) {
+    }
+
+    default void onRows(String table, SyncAction action, long count) {
+    }
+
+    default void onMismatch(String table, String property, long count) {
+    }
+
+}
@@ -0,0 +1,245 @@
+package com.tool.dataSync;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a set of syncs that depend on each other, e.g. a parent table before its children. A task starts once all of
+ * its dependencies succeeded, at most {@code parallelism} tasks run at a time and together they hold at most
+ * {@code connectionBudget} connections. Dependents of a failed task are skipped, independent tasks still run.
+ * <pre>
+ * new SyncOrchestrator(4, 8)
+ *         .add(departmentSyncService)
+ *         .add(employeeSyncService, "DepartmentSyncServiceImpl")
+ *         .run()
+ *         .checkSucceeded();
+ * </pre>
+ */
+@Slf4j
+public class SyncOrchestrator {
+
+    private final int parallelism;
+    private final int connectionBudget;
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+
+    public SyncOrchestrator(int parallelism, int connectionBudget) {
+
+        if (parallelism < 1 || connectionBudget < 1) {
+            throw new IllegalArgumentException("parallelism and connection budget must be positive");
+        }
+        this.parallelism = parallelism;
+        this.connectionBudget = connectionBudget;
+    }
+
+    /**
+     * Adds {@link AbstractIncSyncServiceImpl#syncIncrementally()} of {@code service} under its table name, holding
+     * one connection.
+     */
+    public SyncOrchestrator add(AbstractIncSyncServiceImpl<?, ?, ?, ?> service, String... dependsOn) {
+
+        return this.add(service.getTableName(), service::syncIncrementally, 1, dependsOn);
+    }
+
+    /**
+     * @param connections connections the task holds while it runs, e.g. its diff parallelism when it writes from
+     *                    several threads; capped at the budget
+     * @param dependsOn   names of the tasks that have to succeed first
+     */
+    public SyncOrchestrator add(String name, Runnable sync, int connections, String... dependsOn) {
+
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("sync task " + name + " is already added");
+        }
+        tasks.put(name, new Task(name, sync, Math.max(1, Math.min(connections, connectionBudget)), new ArrayList<>(new LinkedHashSet<>(Arrays.asList(dependsOn)))));
+        return this;
+    }
+
+    public SyncRunReport run() {
+
+        List<Task> order = this.topologicalOrder();
+        Map<String, List<Task>> dependents = new HashMap<>();
+        Map<String, Integer> pendingDependencies = new HashMap<>();
+        for (Task task : order) {
+            pendingDependencies.put(task.name, task.dependsOn.size());
+            task.dependsOn.forEach(x -> dependents.computeIfAbsent(x, k -> new ArrayList<>()).add(task));
+        }
+        Map<String, SyncRunReport.TaskRun> taskRuns = new HashMap<>();
+        Semaphore connections = new Semaphore(connectionBudget, true);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, this.newThreadFactory());
+        CompletionService<SyncRunReport.TaskRun> completionService = new ExecutorCompletionService<>(executor);
+        long runStartNanos = System.nanoTime();
+        int running = 0;
+        try {
+            for (Task task : order) {
+                if (task.dependsOn.isEmpty()) {
+                    completionService.submit(() -> this.execute(task, connections, runStartNanos));
+                    running++;
+                }
+            }
+            while (running > 0) {
+                SyncRunReport.TaskRun taskRun = completionService.take().get();
+                running--;
+                taskRuns.put(taskRun.getName(), taskRun);
+                for (Task dependent : dependents.getOrDefault(taskRun.getName(), new ArrayList<>())) {
+                    if (taskRuns.containsKey(dependent.name)) {
+                        continue;
+                    }
+                    if (taskRun.getStatus() != SyncRunReport.Status.SUCCEEDED) {
+                        this.skip(dependent, taskRun.getName(), dependents, taskRuns, System.nanoTime() - runStartNanos);
+                    } else if (pendingDependencies.merge(dependent.name, -1, Integer::sum) == 0) {
+                        completionService.submit(() -> this.execute(dependent, connections, runStartNanos));
+                        running++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("sync run is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("sync run is failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        SyncRunReport report = this.report(order, taskRuns, System.nanoTime() - runStartNanos);
+        log.info("sync run done, {}", report);
+        return report;
+    }
+
+    private SyncRunReport.TaskRun execute(Task task, Semaphore connections, long runStartNanos) throws InterruptedException {
+
+        connections.acquire(task.connections);
+        long startNanos = System.nanoTime() - runStartNanos;
+        try {
+            log.info("sync of {} is started", task.name);
+            task.sync.run();
+            return new SyncRunReport.TaskRun(task.name, SyncRunReport.Status.SUCCEEDED, startNanos, System.nanoTime() - runStartNanos, null);
+        } catch (Exception e) {
+            log.error("sync of {} is failed", task.name, e);
+            return new SyncRunReport.TaskRun(task.name, SyncRunReport.Status.FAILED, startNanos, System.nanoTime() - runStartNanos, e);
+        } finally {
+            connections.release(task.connections);
+        }
+    }
+
+    private void skip(Task task, String failedDependency, Map<String, List<Task>> dependents,
+                      Map<String, SyncRunReport.TaskRun> taskRuns, long nanos) {
+
+        log.warn("sync of {} is skipped, dependency {} is not succeeded", task.name, failedDependency);
+        taskRuns.put(task.name, new SyncRunReport.TaskRun(task.name, SyncRunReport.Status.SKIPPED, nanos, nanos, null));
+        for (Task dependent : dependents.getOrDefault(task.name, new ArrayList<>())) {
+            if (!taskRuns.containsKey(dependent.name)) {
+                this.skip(dependent, task.name, dependents, taskRuns, nanos);
+            }
+        }
+    }
+
+    /**
+     * Tasks in an order where every task comes after its dependencies; unknown dependencies and cycles are rejected.
+     */
+    private List<Task> topologicalOrder() {
+
+        Map<String, Integer> inDegrees = new HashMap<>();
+        Map<String, List<Task>> dependents = new HashMap<>();
+        for (Task task : tasks.values()) {
+            for (String dependency : task.dependsOn) {
+                if (!tasks.containsKey(dependency)) {
+                    throw new IllegalStateException("sync task " + task.name + " depends on unknown task " + dependency);
+                }
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(task);
+            }
+            inDegrees.put(task.name, task.dependsOn.size());
+        }
+        Deque<Task> ready = new ArrayDeque<>();
+        tasks.values().stream().filter(x -> x.dependsOn.isEmpty()).forEach(ready::add);
+        List<Task> order = new ArrayList<>(tasks.size());
+        while (!ready.isEmpty()) {
+            Task task = ready.poll();
+            order.add(task);
+            for (Task dependent : dependents.getOrDefault(task.name, new ArrayList<>())) {
+                if (inDegrees.merge(dependent.name, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() != tasks.size()) {
+            List<String> cyclic = new ArrayList<>(tasks.keySet());
+            order.forEach(x -> cyclic.remove(x.name));
+            throw new IllegalStateException("sync tasks " + cyclic + " have cyclic dependencies");
+        }
+        return order;
+    }
+
+    /**
+     * The critical path is the chain of dependencies with the longest sum of task durations.
+     */
+    private SyncRunReport report(List<Task> order, Map<String, SyncRunReport.TaskRun> taskRuns, long wallClockNanos) {
+
+        Map<String, Long> pathNanos = new HashMap<>();
+        Map<String, String> predecessors = new HashMap<>();
+        String last = null;
+        List<SyncRunReport.TaskRun> orderedRuns = new ArrayList<>(order.size());
+        for (Task task : order) {
+            SyncRunReport.TaskRun taskRun = taskRuns.get(task.name);
+            orderedRuns.add(taskRun);
+            long before = 0;
+            for (String dependency : task.dependsOn) {
+                if (!predecessors.containsKey(task.name) || pathNanos.get(dependency) > before) {
+                    before = pathNanos.get(dependency);
+                    predecessors.put(task.name, dependency);
+                }
+            }
+            pathNanos.put(task.name, before + taskRun.getDurationNanos());
+            if (last == null || pathNanos.get(task.name) > pathNanos.get(last)) {
+                last = task.name;
+            }
+        }
+        List<String> criticalPath = new ArrayList<>();
+        for (String name = last; name != null; name = predecessors.get(name)) {
+            criticalPath.add(0, name);
+        }
+        return new SyncRunReport(wallClockNanos, orderedRuns, criticalPath, last == null ? 0 : pathNanos.get(last));
+    }
+
+    private ThreadFactory newThreadFactory() {
+
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sync-orchestrator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Task {
+
+        private final String name;
+        private final Runnable sync;
+        private final int connections;
+        private final List<String> dependsOn;
+
+        Task(String name, Runnable sync, int connections, List<String> dependsOn) {
+
+            this.name = name;
+            this.sync = sync;
+            this.connections = connections;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.tool.dataSync;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How stage, log and target rows are written by {@link AbstractIncSyncServiceImpl}. Lists passed in are never empty.
+ */
+public interface SyncPersistenceStrategy<E> {
+
+    void insert(List<E> entities);
+
+    void update(List<E> entities);
+
+    /**
+     * Updates only the dirty properties of every entity; {@code dirtyProperties} runs parallel to {@code entities}
+     * and a null set stands for all properties. Defaults to a full {@link #update(List)}; for JPA merges Hibernate's
+     * {@code @DynamicUpdate} on the entity limits the statement to the changed columns instead.
+     */
+    default void updateDirty(List<E> entities, List<Set<String>> dirtyProperties) {
+
+        this.update(entities);
+    }
+
+    void delete(List<E> entities);
+
+}
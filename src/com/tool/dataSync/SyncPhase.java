@@ -0,0 +1,10 @@
+package com.tool.dataSync;
+
+/**
+ * Timed phases of a sync run, reported through {@link SyncMetricsListener#onPhase(String, SyncPhase, long)}.
+ */
+public enum SyncPhase {
+
+    KEY_MAP_BUILD, DIFF, STAGE_PERSIST, LOG_PERSIST, TARGET_PERSIST
+
+}
@@ -0,0 +1,83 @@
+package com.tool.dataSync;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of a {@link SyncOrchestrator} run: every task with its offsets from the start of the run, the wall-clock
+ * time and the critical path, i.e. the chain of dependent tasks with the longest total duration, which bounds the
+ * run however high the parallelism is.
+ */
+@Getter
+public final class SyncRunReport {
+
+    private final long wallClockNanos;
+    private final List<TaskRun> taskRuns;
+    private final List<String> criticalPath;
+    private final long criticalPathNanos;
+
+    SyncRunReport(long wallClockNanos, List<TaskRun> taskRuns, List<String> criticalPath, long criticalPathNanos) {
+
+        this.wallClockNanos = wallClockNanos;
+        this.taskRuns = Collections.unmodifiableList(new ArrayList<>(taskRuns));
+        this.criticalPath = Collections.unmodifiableList(new ArrayList<>(criticalPath));
+        this.criticalPathNanos = criticalPathNanos;
+    }
+
+    public List<TaskRun> getFailed() {
+
+        return taskRuns.stream().filter(x -> x.getStatus() != Status.SUCCEEDED).collect(Collectors.toList());
+    }
+
+    /**
+     * Throws when a task failed or was skipped because a dependency failed, with the first failure as cause.
+     */
+    public void checkSucceeded() {
+
+        List<TaskRun> failed = this.getFailed();
+        if (!failed.isEmpty()) {
+            Throwable cause = failed.stream().map(TaskRun::getError).filter(x -> x != null).findFirst().orElse(null);
+            throw new RuntimeException("sync of " + failed.stream().map(TaskRun::getName).collect(Collectors.toList()) + " is failed", cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return "wall clock:" + TimeUnit.NANOSECONDS.toMillis(wallClockNanos) + "ms, critical path:" + criticalPath + " "
+                + TimeUnit.NANOSECONDS.toMillis(criticalPathNanos) + "ms, failed:" + this.getFailed().stream().map(TaskRun::getName).collect(Collectors.toList());
+    }
+
+    public enum Status {
+        SUCCEEDED, FAILED, SKIPPED
+    }
+
+    @Getter
+    public static final class TaskRun {
+
+        private final String name;
+        private final Status status;
+        private final long startNanos;
+        private final long endNanos;
+        private final Throwable error;
+
+        TaskRun(String name, Status status, long startNanos, long endNanos, Throwable error) {
+
+            this.name = name;
+            this.status = status;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.error = error;
+        }
+
+        public long getDurationNanos() {
+
+            return endNanos - startNanos;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tool.dataSync;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one sync run, safe to update from the parallel diff. Only the first {@link #MISMATCH_LOG_SAMPLES}
+ * mismatches of a run are logged with their values, the rest is reported as counts per property at the end.
+ */
+@Slf4j
+final class SyncStatistics {
+
+    private static final int MISMATCH_LOG_SAMPLES = 20;
+
+    @Getter
+    private final String table;
+    private final LongAdder[] rows = newAdders(SyncAction.values().length);
+    private final LongAdder[] phaseNanos = newAdders(SyncPhase.values().length);
+    private final ConcurrentMap<String, LongAdder> mismatches = new ConcurrentHashMap<>();
+    private final AtomicInteger loggedMismatches = new AtomicInteger();
+
+    SyncStatistics(String table) {
+
+        this.table = table;
+    }
+
+    void countRows(SyncAction action, long count) {
+
+        rows[action.ordinal()].add(count);
+    }
+
+    void recordPhase(SyncPhase phase, long startNanos) {
+
+        phaseNanos[phase.ordinal()].add(System.nanoTime() - startNanos);
+    }
+
+    void recordMismatch(PropertyComparisonPlan.PropertyComparator comparator, Object source, Object stage) {
+
+        mismatches.computeIfAbsent(comparator.getName(), x -> new LongAdder()).increment();
+        if (loggedMismatches.incrementAndGet() <= MISMATCH_LOG_SAMPLES) {
+            log.info("value is not match for table:{}/property:{} = source:{}/stage:{}", table, comparator.getName(),
+                    comparator.getSourceValue(source), comparator.getStageValue(stage));
+        }
+    }
+
+    long getRows(SyncAction action) {
+
+        return rows[action.ordinal()].sum();
+    }
+
+    void report(SyncMetricsListener listener) {
+
+        Map<String, Long> mismatchCounts = new TreeMap<>();
+        mismatches.forEach((k, v) -> mismatchCounts.put(k, v.sum()));
+        log.info("sync of table:{} done, insert:{}/update:{}/delete:{}/unchanged:{}, mismatches:{}", table, this.getRows(SyncAction.INSERT),
+                this.getRows(SyncAction.UPDATE), this.getRows(SyncAction.DELETE), this.getRows(SyncAction.DEFAULT), mismatchCounts);
+        try {
+            for (SyncPhase phase : SyncPhase.values()) {
+                listener.onPhase(table, phase, phaseNanos[phase.ordinal()].sum());
+            }
+            for (SyncAction action : SyncAction.values()) {
+                listener.onRows(table, action, this.getRows(action));
+            }
+            mismatchCounts.forEach((k, v) -> listener.onMismatch(table, k, v));
+        } catch (Exception e) {
+            log.error("error when report metrics of table:{}", table, e);
+        }
+    }
+
+    private static LongAdder[] newAdders(int size) {
+
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
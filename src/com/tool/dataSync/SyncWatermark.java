@@ -0,0 +1,22 @@
+package com.tool.dataSync;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * High-watermark of an incremental sync: source rows changed after {@link #watermark} have not been synced yet.
+ */
+@Data
+public class SyncWatermark implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String table;
+
+    private Date watermark;
+
+    private Date lastFullSyncAt;
+
+}
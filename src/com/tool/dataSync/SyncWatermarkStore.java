@@ -0,0 +1,12 @@
+package com.tool.dataSync;
+
+/**
+ * Keeps {@link SyncWatermark}s between runs. {@link #save(SyncWatermark)} is called inside the sync transaction.
+ */
+public interface SyncWatermarkStore {
+
+    SyncWatermark load(String table);
+
+    void save(SyncWatermark watermark);
+
+}
@@ -0,0 +1,95 @@
+package com.tool.dataSync;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Collects the log rows of the current transaction into a buffer, prepares the buffer right before the transaction
+ * commits and hands it over once the transaction committed; the buffer of a rolled back transaction is discarded,
+ * also when it was already prepared. Without an active transaction synchronization {@link #flush()} stands in for
+ * the commit.
+ */
+abstract class TransactionBoundChangeLogSink<Log, Buffer> implements ChangeLogSink<Log> {
+
+    private final ThreadLocal<Buffer> unsynchronized = new ThreadLocal<>();
+
+    @Override
+    public void append(Log log) {
+
+        this.add(this.currentBuffer(), log);
+    }
+
+    @Override
+    public void flush() {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Buffer buffer = unsynchronized.get();
+            if (buffer != null) {
+                unsynchronized.remove();
+                this.prepare(buffer);
+                this.commit(buffer);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Buffer currentBuffer() {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Buffer buffer = unsynchronized.get();
+            if (buffer == null) {
+                buffer = this.newBuffer();
+                unsynchronized.set(buffer);
+            }
+            return buffer;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            Buffer transactionBuffer = this.newBuffer();
+            TransactionSynchronizationManager.bindResource(this, transactionBuffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+
+                    prepare(transactionBuffer);
+                }
+
+                @Override
+                public void afterCommit() {
+
+                    commit(transactionBuffer);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionBoundChangeLogSink.this);
+                    if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                        discard(transactionBuffer);
+                    }
+                }
+            });
+            buffer = transactionBuffer;
+        }
+        return buffer;
+    }
+
+    protected abstract Buffer newBuffer();
+
+    protected abstract void add(Buffer buffer, Log log);
+
+    /**
+     * Called before the transaction commits, a failure rolls the transaction back.
+     */
+    protected void prepare(Buffer buffer) {
+
+    }
+
+    /**
+     * Called after the transaction committed, a failure no longer affects the transaction.
+     */
+    protected abstract void commit(Buffer buffer);
+
+    protected abstract void discard(Buffer buffer);
+}
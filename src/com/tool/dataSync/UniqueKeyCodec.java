@@ -0,0 +1,10 @@
+package com.tool.dataSync;
+
+/**
+ * Encodes the unique object of source and stage rows into a primitive key, so the diff can index stage rows in a
+ * {@link CompactStageIndex} instead of a map of composed unique objects. A source and a stage row must get equal
+ * keys exactly when their unique objects are equal. Implement {@link LongKeyCodec} or {@link PackedKeyCodec}.
+ */
+public interface UniqueKeyCodec<Source, Stage> {
+
+}
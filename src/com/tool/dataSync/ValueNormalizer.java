@@ -0,0 +1,101 @@
+package com.tool.dataSync;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization applied to source values before they are compared with stage values. Rounding is half even on the
+ * exact binary value, the way {@code DecimalFormat} rounds, and done arithmetically so it neither allocates nor
+ * shares state between threads; only the rare cases where the arithmetic could round differently fall back to
+ * {@link BigDecimal}. NaN and infinite values are returned unchanged.
+ */
+final class ValueNormalizer {
+
+    static final int DEFAULT_FLOAT_SCALE = 6;
+
+    /**
+     * Up to this scale a float times the power of ten is exact in a double (24 + 12 * log2(5) bits <= 53).
+     */
+    private static final int MAX_EXACT_FLOAT_SCALE = 12;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static final double TWO_POW_52 = 4503599627370496d;
+
+    /**
+     * The 29 low mantissa bits a double loses when it is narrowed to a float, and their pattern when the double lies
+     * exactly halfway between two floats.
+     */
+    private static final long FLOAT_DROPPED_BITS = (1L << 29) - 1;
+    private static final long FLOAT_HALF_WAY = 1L << 28;
+
+    private ValueNormalizer() {
+    }
+
+    static float roundFloat(float source) {
+
+        return roundFloat(source, DEFAULT_FLOAT_SCALE);
+    }
+
+    static float roundFloat(float source, int scale) {
+
+        if (Float.isNaN(source) || Float.isInfinite(source)) {
+            return source;
+        }
+        if (scale > MAX_EXACT_FLOAT_SCALE) {
+            return Float.parseFloat(new BigDecimal(source).setScale(scale, RoundingMode.HALF_EVEN).toString());
+        }
+        double power = POWERS_OF_TEN[scale];
+        double scaled = Math.rint(source * power);
+        double rounded = scaled / power;
+        if ((Double.doubleToRawLongBits(rounded) & FLOAT_DROPPED_BITS) == FLOAT_HALF_WAY) {
+            // narrowing would round a second time from a tie, parse the decimal instead
+            return Float.parseFloat(new BigDecimal(scaled).movePointLeft(scale).toString());
+        }
+        return (float) rounded;
+    }
+
+    static double roundDouble(double source, int scale) {
+
+        if (Double.isNaN(source) || Double.isInfinite(source)) {
+            return source;
+        }
+        if (scale >= POWERS_OF_TEN.length) {
+            return new BigDecimal(source).setScale(scale, RoundingMode.HALF_EVEN).doubleValue();
+        }
+        double power = POWERS_OF_TEN[scale];
+        double scaled = source * power;
+        if (Math.abs(scaled) >= TWO_POW_52 || Math.abs(scaled - Math.floor(scaled) - 0.5) <= Math.ulp(scaled)) {
+            // the product is inexact, it may have moved across a tie or lost the digits to round on
+            return new BigDecimal(source).setScale(scale, RoundingMode.HALF_EVEN).doubleValue();
+        }
+        return Math.rint(scaled) / power;
+    }
+
+    static BigDecimal roundDecimal(BigDecimal source, int scale) {
+
+        return source.scale() == scale ? source : source.setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Truncates to a whole {@code unit} of the default time zone; {@link Timestamp} nanos below the unit are dropped
+     * too, the result is always a plain {@link Date}.
+     */
+    static Date truncate(Date source, TimeUnit unit) {
+
+        long time = source.getTime();
+        long unitMillis = unit.toMillis(1);
+        if (unitMillis <= 1) {
+            return source instanceof Timestamp ? new Date(time) : source;
+        }
+        long offset = TimeZone.getDefault().getOffset(time);
+        long localTime = time + offset;
+        long truncated = localTime - Math.floorMod(localTime, unitMillis) - offset;
+        return truncated == time && !(source instanceof Timestamp) ? source : new Date(truncated);
+    }
+}
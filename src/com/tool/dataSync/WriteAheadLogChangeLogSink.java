@@ -0,0 +1,357 @@
+package com.tool.dataSync;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes log rows asynchronously. The rows of a transaction are streamed as JSON lines into a segment file under
+ * {@code directory} instead of being held in memory. Right before the transaction commits the segment is forced to
+ * disk and renamed from {@code .wal} to {@code .prepared}, once it committed it is renamed to {@code .log}; every
+ * rename is followed by forcing the directory, so the name on disk never claims more than the transaction reached.
+ * The committing thread only queues the path of a committed segment, but waits while more than {@code maxPendingBytes}
+ * of committed segments are not written yet, so a slow database slows the syncs down instead of filling the disk. The
+ * writer thread reads the segments in commit order, {@code batchSize} rows at a time, inserts every batch in its own
+ * transaction and deletes a segment once all of its rows are written. A failed batch is retried with a growing delay,
+ * starting after the rows already written; a segment still failing when the sink is closed is left for the next start.
+ * <p>
+ * {@link #start()} replays the {@code .log} segments left by a crash, so log rows are written at least once: a crash in
+ * the middle of a segment writes its first batches again. {@code .wal} segments belong to transactions that never
+ * committed and are deleted. {@code .prepared} segments are forced but their transaction may or may not have
+ * committed, so they are kept and reported; renaming one to {@code .log} replays it on the next start.
+ */
+@Slf4j
+public class WriteAheadLogChangeLogSink<Log> extends TransactionBoundChangeLogSink<Log, WriteAheadLogChangeLogSink.Segment>
+        implements Closeable {
+
+    private static final String OPEN_SUFFIX = ".wal";
+    private static final String PREPARED_SUFFIX = ".prepared";
+    private static final String COMMITTED_SUFFIX = ".log";
+    private static final long DEFAULT_MAX_PENDING_BYTES = 64L * 1024 * 1024;
+    private static final long MIN_RETRY_MILLIS = 1000;
+    private static final long MAX_RETRY_MILLIS = 60000;
+
+    private final SyncPersistenceStrategy<Log> persistenceStrategy;
+    private final TransactionTemplate transactionTemplate;
+    private final Class<Log> logClass;
+    private final Path directory;
+    private final int batchSize;
+    private final long maxPendingBytes;
+    private final BlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+    private final Path end = Paths.get("");
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Object pendingLock = new Object();
+    private long pendingBytes;
+    private volatile Thread writer;
+    private volatile CountDownLatch closing;
+
+    public WriteAheadLogChangeLogSink(SyncPersistenceStrategy<Log> persistenceStrategy, PlatformTransactionManager transactionManager,
+                                      Class<Log> logClass, Path directory, int batchSize) {
+
+        this(persistenceStrategy, transactionManager, logClass, directory, batchSize, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public WriteAheadLogChangeLogSink(SyncPersistenceStrategy<Log> persistenceStrategy, PlatformTransactionManager transactionManager,
+                                      Class<Log> logClass, Path directory, int batchSize, long maxPendingBytes) {
+
+        this.persistenceStrategy = persistenceStrategy;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.logClass = logClass;
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    public synchronized void start() {
+
+        if (writer != null) {
+            return;
+        }
+        List<Path> committedSegments = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory)) {
+                for (Path segment : segments) {
+                    String name = segment.getFileName().toString();
+                    if (name.endsWith(OPEN_SUFFIX)) {
+                        Files.delete(segment);
+                    } else if (name.endsWith(PREPARED_SUFFIX)) {
+                        log.warn("change log segment:{} was prepared but its transaction may not have committed, it is kept", segment);
+                    } else if (name.endsWith(COMMITTED_SUFFIX)) {
+                        committedSegments.add(segment);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not open change log directory " + directory, e);
+        }
+        closing = new CountDownLatch(1);
+        writer = new Thread(this::writeSegments, "change-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Collections.sort(committedSegments);
+        for (Path segment : committedSegments) {
+            log.info("replay change log segment:{}", segment);
+            // replayed segments are counted but never wait, the writer is the only one to free them
+            this.addPending(this.sizeOf(segment));
+            queue.add(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+
+        if (writer == null) {
+            return;
+        }
+        closing.countDown();
+        queue.add(end);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    protected Segment newBuffer() {
+
+        if (writer == null) {
+            throw new IllegalStateException("change log sink is not started");
+        }
+        Path path = directory.resolve(System.currentTimeMillis() + "-" + UUID.randomUUID() + OPEN_SUFFIX);
+        try {
+            return new Segment(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not create change log segment " + path, e);
+        }
+    }
+
+    @Override
+    protected void add(Segment segment, Log log) {
+
+        try {
+            segment.getWriter().write(objectMapper.writeValueAsString(log));
+            segment.getWriter().newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not write change log segment " + segment.getPath(), e);
+        }
+    }
+
+    @Override
+    protected void prepare(Segment segment) {
+
+        try {
+            segment.getWriter().flush();
+            segment.getStream().getChannel().force(true);
+            segment.setSize(segment.getStream().getChannel().size());
+            segment.getWriter().close();
+            this.rename(segment, OPEN_SUFFIX, PREPARED_SUFFIX);
+        } catch (IOException e) {
+            throw new UncheckedIOException("can not prepare change log segment " + segment.getPath(), e);
+        }
+    }
+
+    @Override
+    protected void commit(Segment segment) {
+
+        try {
+            this.rename(segment, PREPARED_SUFFIX, COMMITTED_SUFFIX);
+        } catch (IOException e) {
+            // the transaction is committed already, the segment is left for the next start to report
+            log.error("error when commit change log segment:{}", segment.getPath(), e);
+            return;
+        }
+        this.awaitPending(segment.getSize());
+        queue.add(segment.getPath());
+    }
+
+    @Override
+    protected void discard(Segment segment) {
+
+        try {
+            segment.getWriter().close();
+            Files.deleteIfExists(segment.getPath());
+        } catch (IOException e) {
+            log.error("error when discard change log segment:{}", segment.getPath(), e);
+        }
+    }
+
+    private void rename(Segment segment, String fromSuffix, String toSuffix) throws IOException {
+
+        String name = segment.getPath().getFileName().toString();
+        Path renamed = segment.getPath().resolveSibling(name.substring(0, name.length() - fromSuffix.length()) + toSuffix);
+        Files.move(segment.getPath(), renamed, StandardCopyOption.ATOMIC_MOVE);
+        segment.setPath(renamed);
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not every platform opens directories, e.g. Windows; the rename is durable once the file system syncs
+            log.warn("can not force change log directory:{}", directory, e);
+        }
+    }
+
+    /**
+     * Waits until {@code size} more bytes fit below {@code maxPendingBytes} and counts them; a segment larger than the
+     * limit only waits for the writer to catch up completely. An interrupt stops the wait, not the commit.
+     */
+    private void awaitPending(long size) {
+
+        synchronized (pendingLock) {
+            try {
+                while (pendingBytes > 0 && pendingBytes + size > maxPendingBytes) {
+                    pendingLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pendingBytes += size;
+        }
+    }
+
+    private void addPending(long size) {
+
+        synchronized (pendingLock) {
+            pendingBytes += size;
+            pendingLock.notifyAll();
+        }
+    }
+
+    private long sizeOf(Path segment) {
+
+        try {
+            return Files.size(segment);
+        } catch (IOException e) {
+            log.warn("can not read size of change log segment:{}", segment, e);
+            return 0;
+        }
+    }
+
+    private void writeSegments() {
+
+        while (true) {
+            Path segment;
+            try {
+                segment = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (segment == end) {
+                return;
+            }
+            long size = this.sizeOf(segment);
+            if (this.writeSegment(segment)) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    log.error("error when delete change log segment:{}", segment, e);
+                }
+            }
+            this.addPending(-size);
+        }
+    }
+
+    /**
+     * Writes the rows of {@code segment}, retrying a failed batch until it succeeds or the sink is closed; a retry skips
+     * the rows of the batches written before.
+     */
+    private boolean writeSegment(Path segment) {
+
+        long writtenRows = 0;
+        long retryMillis = MIN_RETRY_MILLIS;
+        while (true) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                List<Log> logs = new ArrayList<>(batchSize);
+                long rows = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || rows++ < writtenRows) {
+                        continue;
+                    }
+                    logs.add(objectMapper.readValue(line, logClass));
+                    if (logs.size() >= batchSize) {
+                        this.insert(logs);
+                        writtenRows += logs.size();
+                        logs = new ArrayList<>(batchSize);
+                    }
+                }
+                this.insert(logs);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                if (closing.getCount() == 0) {
+                    log.error("error when write change logs, segment:{} is kept for the next start", segment, e);
+                    return false;
+                }
+                log.error("error when write change logs, segment:{} is retried in {} ms", segment, retryMillis, e);
+            }
+            try {
+                if (closing.await(retryMillis, TimeUnit.MILLISECONDS)) {
+                    log.error("change log sink is closed, segment:{} is kept for the next start", segment);
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    private void insert(List<Log> logs) {
+
+        if (!logs.isEmpty()) {
+            transactionTemplate.execute(status -> {
+                persistenceStrategy.insert(logs);
+                return null;
+            });
+        }
+    }
+
+    @Getter
+    static final class Segment {
+
+        @Setter
+        private Path path;
+        @Setter
+        private long size;
+        private final FileOutputStream stream;
+        private final BufferedWriter writer;
+
+        Segment(Path path) throws IOException {
+
+            this.path = path;
+            this.stream = new FileOutputStream(path.toFile());
+            this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.tool.excel;
+
+import java.util.Arrays;
+
+/**
+ * Fill colors by value range, e.g. the OT color bands: each band covers {@code (lower, upper]}, values in no band get
+ * the {@code otherwise} color, {@link ExcelStyleRegistry.StyleKey#NO_COLOR} for none. The thresholds are kept in
+ * primitive arrays and checked in order, so finding a color neither boxes nor allocates. Immutable.
+ */
+public final class ColorBands {
+
+    private final double[] lowers;
+    private final double[] uppers;
+    private final short[] colors;
+    private final short otherwise;
+
+    private ColorBands(double[] lowers, double[] uppers, short[] colors, short otherwise) {
+
+        this.lowers = lowers;
+        this.uppers = uppers;
+        this.colors = colors;
+        this.otherwise = otherwise;
+    }
+
+    public static ColorBands otherwise(short color) {
+
+        return new ColorBands(new double[0], new double[0], new short[0], color);
+    }
+
+    /**
+     * Adds a band after the others; a value in more than one band gets the color of the first.
+     */
+    public ColorBands band(double lower, double upper, short color) {
+
+        int size = colors.length;
+        double[] newLowers = Arrays.copyOf(lowers, size + 1);
+        double[] newUppers = Arrays.copyOf(uppers, size + 1);
+        short[] newColors = Arrays.copyOf(colors, size + 1);
+        newLowers[size] = lower;
+        newUppers[size] = upper;
+        newColors[size] = color;
+        return new ColorBands(newLowers, newUppers, newColors, otherwise);
+    }
+
+    public int size() {
+
+        return colors.length;
+    }
+
+    /**
+     * @return index of the band of {@code value}, or -1 for none, also for NaN
+     */
+    public int bandOf(double value) {
+
+        for (int i = 0; i < lowers.length; i++) {
+            if (value > lowers[i] && value <= uppers[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public short colorOf(double value) {
+
+        return this.getColor(this.bandOf(value));
+    }
+
+    /**
+     * @param band index of a band, or -1 for the {@code otherwise} color
+     */
+    public short getColor(int band) {
+
+        return band < 0 ? otherwise : colors[band];
+    }
+}
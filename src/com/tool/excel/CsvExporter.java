@@ -0,0 +1,264 @@
+package com.tool.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * UTF-8 CSV (RFC 4180) counterpart of {@link StreamingExcelExporter} on the same {@link ExcelColumn}s, for callers
+ * that only need the numbers: one header line of localized column names, then one line per row, optionally gzipped.
+ * Rows are appended to a reused text buffer and encoded a batch at a time through a reused byte buffer straight into
+ * the output, so a row costs no allocation beyond the boxed column values. Dates are written as
+ * {@code yyyy-MM-dd HH:mm:ss} in the default time zone.
+ * <p>
+ * Not thread safe, an instance writes one export at a time.
+ */
+public class CsvExporter<T> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<ExcelColumn<T>> columns;
+    private final Locale locale;
+    private final boolean gzip;
+    private final StringBuilder text = new StringBuilder(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Calendar calendar = Calendar.getInstance();
+    private char[] chars = new char[BUFFER_SIZE * 2];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+
+    public CsvExporter(List<ExcelColumn<T>> columns, Locale locale, boolean gzip) {
+
+        this.columns = columns;
+        this.locale = locale;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Writes the header and the rows of {@code source}, leaving out columns whose name is in {@code hiddenColumns};
+     * {@code outputStream} is flushed but not closed.
+     *
+     * @return the number of rows written
+     */
+    public long write(JobDataSource<T> source, Set<String> hiddenColumns, OutputStream outputStream) throws IOException {
+
+        if (gzip) {
+            GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            long rows = this.write(source, hiddenColumns, gzipStream::write);
+            gzipStream.finish();
+            gzipStream.flush();
+            return rows;
+        }
+        long rows = this.write(source, hiddenColumns, outputStream::write);
+        outputStream.flush();
+        return rows;
+    }
+
+    /**
+     * Like {@link #write(JobDataSource, Set, OutputStream)} into a blocking {@code channel}, which is not closed.
+     */
+    public long write(JobDataSource<T> source, Set<String> hiddenColumns, WritableByteChannel channel) throws IOException {
+
+        if (gzip) {
+            return this.write(source, hiddenColumns, Channels.newOutputStream(channel));
+        }
+        return this.write(source, hiddenColumns, (array, offset, length) -> {
+            ByteBuffer buffer = ByteBuffer.wrap(array, offset, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        });
+    }
+
+    private long write(JobDataSource<T> source, Set<String> hiddenColumns, ByteSink sink) throws IOException {
+
+        List<ExcelColumn<T>> visibleColumns = columns.stream().filter(x -> !hiddenColumns.contains(x.getName())).collect(Collectors.toList());
+        text.setLength(0);
+        encoder.reset();
+        bytes.clear();
+        this.appendHeader(visibleColumns);
+        long rows = 0;
+        try (Stream<T> datas = source.open()) {
+            Iterator<T> iterator = datas.iterator();
+            while (iterator.hasNext()) {
+                T data = iterator.next();
+                for (int i = 0; i < visibleColumns.size(); i++) {
+                    if (i > 0) {
+                        text.append(',');
+                    }
+                    this.appendValue(visibleColumns.get(i).getValue().apply(data));
+                }
+                text.append("\r\n");
+                rows++;
+                if (text.length() >= BUFFER_SIZE) {
+                    this.encode(sink, false);
+                }
+            }
+        }
+        this.encode(sink, true);
+        return rows;
+    }
+
+    private void appendHeader(List<ExcelColumn<T>> visibleColumns) {
+
+        for (int i = 0; i < visibleColumns.size(); i++) {
+            ExcelColumn<T> column = visibleColumns.get(i);
+            if (i > 0) {
+                text.append(',');
+            }
+            String header = MessageSourceService.getMessage(column.getHeaderKey(), locale);
+            if (column.getGroupKey() != null) {
+                header = MessageSourceService.getMessage(column.getGroupKey(), locale) + " - " + header;
+            }
+            this.appendText(header);
+        }
+        text.append("\r\n");
+    }
+
+    private void appendValue(Object value) {
+
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            text.append(((Number) value).longValue());
+        } else if (value instanceof Float) {
+            int start = text.length();
+            text.append(((Float) value).floatValue());
+            this.expandExponent(start);
+        } else if (value instanceof Double) {
+            int start = text.length();
+            text.append(((Double) value).doubleValue());
+            this.expandExponent(start);
+        } else if (value instanceof BigDecimal) {
+            text.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Date) {
+            this.appendDate((Date) value);
+        } else {
+            this.appendText(value.toString());
+        }
+    }
+
+    /**
+     * Rewrites the number appended from {@code start} in plain notation when it came out in scientific notation,
+     * which {@code Float.toString} and {@code Double.toString} use below 10^-3 and from 10^7 on; the digits stay the
+     * shortest ones that identify the value.
+     */
+    private void expandExponent(int start) {
+
+        if (text.indexOf("E", start) >= 0) {
+            String number = text.substring(start);
+            text.setLength(start);
+            text.append(new BigDecimal(number).stripTrailingZeros().toPlainString());
+        }
+    }
+
+    private void appendDate(Date date) {
+
+        calendar.setTime(date);
+        this.appendPadded(calendar.get(Calendar.YEAR), 4).append('-');
+        this.appendPadded(calendar.get(Calendar.MONTH) + 1, 2).append('-');
+        this.appendPadded(calendar.get(Calendar.DAY_OF_MONTH), 2).append(' ');
+        this.appendPadded(calendar.get(Calendar.HOUR_OF_DAY), 2).append(':');
+        this.appendPadded(calendar.get(Calendar.MINUTE), 2).append(':');
+        this.appendPadded(calendar.get(Calendar.SECOND), 2);
+    }
+
+    private StringBuilder appendPadded(int value, int width) {
+
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                text.append('0');
+            }
+        }
+        return text.append(value);
+    }
+
+    /**
+     * Quotes the text when it holds a separator, quote or line break, doubling the quotes inside.
+     */
+    private void appendText(String value) {
+
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            text.append(value);
+            return;
+        }
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                text.append('"');
+            }
+            text.append(c);
+        }
+        text.append('"');
+    }
+
+    private void encode(ByteSink sink, boolean endOfInput) throws IOException {
+
+        int length = text.length();
+        if (length > chars.length) {
+            chars = new char[length];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        text.getChars(0, length, chars, 0);
+        text.setLength(0);
+        charBuffer.clear().limit(length);
+        while (true) {
+            CoderResult result = encoder.encode(charBuffer, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            this.drain(sink);
+        }
+        if (charBuffer.hasRemaining()) {
+            // a high surrogate at the end of the batch, carried over to the next one
+            text.append(charBuffer);
+        }
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                this.drain(sink);
+            }
+            this.drain(sink);
+        }
+    }
+
+    private void drain(ByteSink sink) throws IOException {
+
+        bytes.flip();
+        if (bytes.hasRemaining()) {
+            sink.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        }
+        bytes.clear();
+    }
+
+    @FunctionalInterface
+    private interface ByteSink {
+
+        void write(byte[] array, int offset, int length) throws IOException;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tool.excel;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * One body column of an exported sheet: the property {@code name} that hidden columns refer to, the message keys of
+ * its headers, how the cell value is read from a row and how the cell is rendered. Columns without a group header
+ * span both header rows; consecutive columns with the same group header share one merged group cell.
+ */
+@Getter
+public final class ExcelColumn<T> {
+
+    private static final int DEFAULT_WIDTH = 12;
+
+    private final String name;
+    private final String headerKey;
+    private final String groupKey;
+    private final Function<T, Object> value;
+    private final ToDoubleFunction<T> numberValue;
+    private final boolean colored;
+    private final boolean merged;
+    private final int width;
+
+    private ExcelColumn(String name, String headerKey, String groupKey, Function<T, Object> value, ToDoubleFunction<T> numberValue,
+                        boolean colored, boolean merged, int width) {
+
+        this.name = name;
+        this.headerKey = headerKey;
+        this.groupKey = groupKey;
+        this.value = value;
+        this.numberValue = numberValue;
+        this.colored = colored;
+        this.merged = merged;
+        this.width = width;
+    }
+
+    public static <T> ExcelColumn<T> of(String name, String headerKey, Function<T, Object> value) {
+
+        return new ExcelColumn<>(name, headerKey, null, value, null, false, false, DEFAULT_WIDTH);
+    }
+
+    /**
+     * A numeric column read without boxing by renderers that use {@link #getNumberValue()}; {@link #getValue()}
+     * still gives the boxed value to the others.
+     */
+    public static <T> ExcelColumn<T> ofNumber(String name, String headerKey, ToDoubleFunction<T> value) {
+
+        return new ExcelColumn<>(name, headerKey, null, x -> value.applyAsDouble(x), value, false, false, DEFAULT_WIDTH);
+    }
+
+    public ExcelColumn<T> inGroup(String groupKey) {
+
+        return new ExcelColumn<>(name, headerKey, groupKey, value, numberValue, colored, merged, width);
+    }
+
+    /**
+     * The body cell is filled with the color the exporter finds for its value, e.g. the OT color band.
+     */
+    public ExcelColumn<T> colored() {
+
+        return new ExcelColumn<>(name, headerKey, groupKey, value, numberValue, true, merged, width);
+    }
+
+    /**
+     * Runs of equal values are merged vertically, nested inside the runs of the merged columns left of it, like the
+     * region, area and camp columns.
+     */
+    public ExcelColumn<T> merged() {
+
+        return new ExcelColumn<>(name, headerKey, groupKey, value, numberValue, colored, true, width);
+    }
+
+    /**
+     * Width in characters.
+     */
+    public ExcelColumn<T> width(int width) {
+
+        return new ExcelColumn<>(name, headerKey, groupKey, value, numberValue, colored, merged, width);
+    }
+}
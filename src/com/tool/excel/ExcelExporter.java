@@ -1,7 +1,13 @@
 package com.tool.excel;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -15,12 +21,180 @@ public class ExcelExporter<Data> extends ExcelExporterV2<Data> {
     @Getter
     private Map<String, List<Data>> dataByJobs;
 
+    private ExcelStyleRegistry styleRegistry;
+
+    private MergedRegionWriter mergedRegionWriter;
+
     public ExcelExporter(Map<String, List<Data>> dataByJobs, Set<String> hiddenColumns, Locale locale) {
 
         super(dataByJobs.get(JobCdEm.CDM.getCode()), JobCdEm.CDM.name(), null, hiddenColumns, locale);
         this.dataByJobs = dataByJobs;
     }
 
+    /**
+     * Streaming xlsx output of the CDM, CL and CS sheets, for reports beyond the row limit or the memory of HSSF.
+     * Sheets get the same hidden columns, legends and header layout as {@link #callback()} draws.
+     */
+    public static <T> void exportXlsx(Map<String, List<T>> dataByJobs, Set<String> hiddenColumns, Locale locale,
+                                      List<ExcelColumn<T>> columns, OutputStream outputStream) throws IOException {
+
+        try (StreamingExcelExporter<T> exporter = newXlsxExporter(locale, columns)) {
+            drawXlsxSheet(exporter, JobCdEm.CDM, dataByJobs, getJobHiddenColumns(JobCdEm.CDM, hiddenColumns), true);
+            drawXlsxSheet(exporter, JobCdEm.CL, dataByJobs, getJobHiddenColumns(JobCdEm.CL, hiddenColumns), false);
+            drawXlsxSheet(exporter, JobCdEm.CS, dataByJobs, getJobHiddenColumns(JobCdEm.CS, hiddenColumns), true);
+            exporter.write(outputStream);
+        }
+    }
+
+    /**
+     * Like {@link #exportXlsx(Map, Set, Locale, List, OutputStream)}, but the job sheets are prepared concurrently on
+     * {@code executor}, and their rows are resolved there a window at a time while the calling thread writes the
+     * workbook, sheet by sheet in job order. Column value functions must be thread safe. Besides the rows of
+     * {@code dataByJobs} only the merged regions and a few windows of resolved rows per sheet are held. The POI
+     * writing, which takes almost all of the time (see {@code XlsxExportBenchmark}), stays on the calling thread; use
+     * {@link #exportXlsxPerJob} to write the sheets in parallel.
+     */
+    public static <T> void exportXlsx(Map<String, List<T>> dataByJobs, Set<String> hiddenColumns, Locale locale,
+                                      List<ExcelColumn<T>> columns, OutputStream outputStream, Executor executor) throws IOException {
+
+        try (StreamingExcelExporter<T> exporter = newXlsxExporter(locale, columns)) {
+            List<CompletableFuture<StreamingExcelExporter.SheetModel<T>>> sheets = new ArrayList<>(3);
+            prepareXlsxSheet(exporter, JobCdEm.CDM, dataByJobs, getJobHiddenColumns(JobCdEm.CDM, hiddenColumns), true, executor).ifPresent(sheets::add);
+            prepareXlsxSheet(exporter, JobCdEm.CL, dataByJobs, getJobHiddenColumns(JobCdEm.CL, hiddenColumns), false, executor).ifPresent(sheets::add);
+            prepareXlsxSheet(exporter, JobCdEm.CS, dataByJobs, getJobHiddenColumns(JobCdEm.CS, hiddenColumns), true, executor).ifPresent(sheets::add);
+            try {
+                for (CompletableFuture<StreamingExcelExporter.SheetModel<T>> sheet : sheets) {
+                    exporter.drawSheet(sheet.join(), executor);
+                }
+            } catch (CompletionException e) {
+                sheets.forEach(x -> x.cancel(false));
+                throw new RuntimeException("error is happening when preparing sheets", e.getCause());
+            }
+            exporter.write(outputStream);
+        }
+    }
+
+    /**
+     * Like {@link #exportXlsx(Map, Set, Locale, List, OutputStream)}, but every job sheet is drawn into a workbook of
+     * its own on {@code executor} and written to the stream {@code outputStreams} gives for its job code, so the
+     * sheets are written in parallel. Job codes without rows get no workbook; the streams are not closed. Column value
+     * functions must be thread safe.
+     */
+    public static <T> void exportXlsxPerJob(Map<String, List<T>> dataByJobs, Set<String> hiddenColumns, Locale locale,
+                                            List<ExcelColumn<T>> columns, Function<JobCdEm, OutputStream> outputStreams,
+                                            Executor executor) throws IOException {
+
+        List<CompletableFuture<Void>> workbooks = new ArrayList<>(3);
+        writeXlsxWorkbookAsync(JobCdEm.CDM, dataByJobs, getJobHiddenColumns(JobCdEm.CDM, hiddenColumns), true, locale, columns, outputStreams, executor).ifPresent(workbooks::add);
+        writeXlsxWorkbookAsync(JobCdEm.CL, dataByJobs, getJobHiddenColumns(JobCdEm.CL, hiddenColumns), false, locale, columns, outputStreams, executor).ifPresent(workbooks::add);
+        writeXlsxWorkbookAsync(JobCdEm.CS, dataByJobs, getJobHiddenColumns(JobCdEm.CS, hiddenColumns), true, locale, columns, outputStreams, executor).ifPresent(workbooks::add);
+        try {
+            CompletableFuture.allOf(workbooks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new RuntimeException("error is happening when writing workbooks", e.getCause());
+        }
+    }
+
+    /**
+     * Like {@link #exportXlsx(Map, Set, Locale, List, OutputStream)}, but the rows of every job code are pulled from
+     * its {@link JobDataSource} while its sheet is drawn, so the entities of a job are never all on the heap.
+     * Job codes without a source or rows get no sheet.
+     */
+    public static <T> void exportXlsxFromSources(Map<String, JobDataSource<T>> sourcesByJobs, Set<String> hiddenColumns, Locale locale,
+                                                 List<ExcelColumn<T>> columns, OutputStream outputStream) throws IOException {
+
+        try (StreamingExcelExporter<T> exporter = newXlsxExporter(locale, columns)) {
+            drawXlsxSheet(exporter, JobCdEm.CDM, sourcesByJobs.get(JobCdEm.CDM.getCode()), getJobHiddenColumns(JobCdEm.CDM, hiddenColumns), true);
+            drawXlsxSheet(exporter, JobCdEm.CL, sourcesByJobs.get(JobCdEm.CL.getCode()), getJobHiddenColumns(JobCdEm.CL, hiddenColumns), false);
+            drawXlsxSheet(exporter, JobCdEm.CS, sourcesByJobs.get(JobCdEm.CS.getCode()), getJobHiddenColumns(JobCdEm.CS, hiddenColumns), true);
+            exporter.write(outputStream);
+        }
+    }
+
+    /**
+     * CSV of the rows of one job code, optionally gzipped, with the columns and localized headers of its xlsx sheet;
+     * {@code outputStream} is not closed.
+     */
+    public static <T> void exportCsv(JobCdEm job, JobDataSource<T> source, Set<String> hiddenColumns, Locale locale,
+                                     List<ExcelColumn<T>> columns, OutputStream outputStream, boolean gzip) throws IOException {
+
+        new CsvExporter<>(columns, locale, gzip).write(source, getJobHiddenColumns(job, hiddenColumns), outputStream);
+    }
+
+    /**
+     * The CL sheet has no daily average OT column, the CS sheet shows all columns.
+     */
+    private static Set<String> getJobHiddenColumns(JobCdEm job, Set<String> hiddenColumns) {
+
+        if (job == JobCdEm.CL) {
+            return Stream.of("dailyAverageOt").collect(Collectors.toSet());
+        }
+        if (job == JobCdEm.CS) {
+            return Collections.emptySet();
+        }
+        return hiddenColumns;
+    }
+
+    private static <T> void drawXlsxSheet(StreamingExcelExporter<T> exporter, JobCdEm job, JobDataSource<T> source,
+                                          Set<String> hiddenColumns, boolean hasLegend) {
+
+        if (source != null) {
+            exporter.drawSheet(job.name(), source, hiddenColumns, hasLegend);
+        }
+    }
+
+    private static <T> StreamingExcelExporter<T> newXlsxExporter(Locale locale, List<ExcelColumn<T>> columns) {
+
+        List<StreamingExcelExporter.Legend> legends = Arrays.asList(
+                new StreamingExcelExporter.Legend(OTColor.GREEN.getColor(), "workingTime.Daily_average_ot_hours_less_than_two"),
+                new StreamingExcelExporter.Legend(OTColor.YELLOW.getColor(), "workingTime.Daily_average_ot_hours_between_two_and_twoHalf"),
+                new StreamingExcelExporter.Legend(OTColor.RED.getColor(), "workingTime.Daily_average_ot_hours_more_than_twoHalf"));
+        return new StreamingExcelExporter<>(columns, locale, legends, OTColor.getColorBands());
+    }
+
+    private static <T> Optional<CompletableFuture<Void>> writeXlsxWorkbookAsync(JobCdEm job, Map<String, List<T>> dataByJobs,
+                                                                               Set<String> hiddenColumns, boolean hasLegend, Locale locale,
+                                                                               List<ExcelColumn<T>> columns,
+                                                                               Function<JobCdEm, OutputStream> outputStreams,
+                                                                               Executor executor) {
+
+        List<T> datas = dataByJobs.get(job.getCode());
+        if (CollectionUtils.isEmpty(datas)) {
+            return Optional.empty();
+        }
+        return Optional.of(CompletableFuture.runAsync(() -> {
+            try (StreamingExcelExporter<T> exporter = newXlsxExporter(locale, columns)) {
+                exporter.drawSheet(job.name(), datas, hiddenColumns, hasLegend);
+                exporter.write(outputStreams.apply(job));
+            } catch (IOException e) {
+                throw new UncheckedIOException("can not write workbook of " + job.name(), e);
+            }
+        }, executor));
+    }
+
+    private static <T> Optional<CompletableFuture<StreamingExcelExporter.SheetModel<T>>> prepareXlsxSheet(
+            StreamingExcelExporter<T> exporter, JobCdEm job, Map<String, List<T>> dataByJobs, Set<String> hiddenColumns, boolean hasLegend,
+            Executor executor) {
+
+        List<T> datas = dataByJobs.get(job.getCode());
+        if (CollectionUtils.isNotEmpty(datas)) {
+            return Optional.of(exporter.prepareSheetAsync(job.name(), datas, hiddenColumns, hasLegend, executor));
+        }
+        return Optional.empty();
+    }
+
+    private static <T> void drawXlsxSheet(StreamingExcelExporter<T> exporter, JobCdEm job, Map<String, List<T>> dataByJobs,
+                                          Set<String> hiddenColumns, boolean hasLegend) {
+
+        List<T> datas = dataByJobs.get(job.getCode());
+        if (CollectionUtils.isNotEmpty(datas)) {
+            exporter.drawSheet(job.name(), datas, hiddenColumns, hasLegend);
+        }
+    }
+
     @Override
     public void callback() {
 
@@ -28,6 +202,7 @@ public class ExcelExporter<Data> extends ExcelExporterV2<Data> {
 //			this.mergeDataCell(3, dataByJobs.get(JobCdEm.CDM.getCode()));
             this.drawCLSheet();
             this.drawCSSheet();
+            this.getStyleRegistry().verifyUnchanged();
         } catch (Exception e) {
             log.error("error is occurred");
             throw new RuntimeException("error is happening", e);
@@ -84,33 +259,39 @@ public class ExcelExporter<Data> extends ExcelExporterV2<Data> {
     protected int drawTitleLine(int rowNum) {
 
         HSSFRow titleRow = sheet.createRow(rowNum);
+        List<CellRangeAddress> regions = new ArrayList<>(3);
         int colNum = 0;
         String desc = MessageSourceService.getMessage("workingTime.Daily_average_ot_hours_less_than_two", this.locale);
-        colNum = this.drawLegend(titleRow, rowNum, colNum, OTColor.GREEN.getColor(), desc);
+        colNum = this.drawLegend(titleRow, rowNum, colNum, OTColor.GREEN.getColor(), desc, regions);
         desc = MessageSourceService.getMessage("workingTime.Daily_average_ot_hours_between_two_and_twoHalf", this.locale);
-        colNum = this.drawLegend(titleRow, rowNum, colNum, OTColor.YELLOW.getColor(), desc);
+        colNum = this.drawLegend(titleRow, rowNum, colNum, OTColor.YELLOW.getColor(), desc, regions);
         desc = MessageSourceService.getMessage("workingTime.Daily_average_ot_hours_more_than_twoHalf", this.locale);
-        this.drawLegend(titleRow, rowNum, colNum, OTColor.RED.getColor(), desc);
+        this.drawLegend(titleRow, rowNum, colNum, OTColor.RED.getColor(), desc, regions);
+        MergedRegionWriter regionWriter = this.getMergedRegionWriter();
+        regionWriter.setRegionBorders(sheet, regions, BorderStyle.THIN, defaultBorderColor);
+        // a description of a single cell is bordered like the others but can not be merged
+        regionWriter.addMergedRegions(sheet, regions.stream().filter(x -> x.getNumberOfCells() > 1).collect(Collectors.toList()));
         return rowNum + 2;
     }
 
-    private int drawLegend(HSSFRow titleRow, int rowNum, int colNum, short color, String desc) {
+    private int drawLegend(HSSFRow titleRow, int rowNum, int colNum, short color, String desc, List<CellRangeAddress> regions) {
 
         fillColor(titleRow, colNum, color);
-        int endCol = drawDesc(titleRow, rowNum, colNum, desc);
+        int endCol = drawDesc(titleRow, rowNum, colNum, desc, regions);
         return endCol + 1;
     }
 
-    private int drawDesc(HSSFRow titleRow, int rowNum, int colNum, String desc) {
+    /**
+     * The region of the description is collected into {@code regions}, which are bordered and merged together.
+     */
+    private int drawDesc(HSSFRow titleRow, int rowNum, int colNum, String desc, List<CellRangeAddress> regions) {
 
         colNum = colNum + 1;
         HSSFCell cell = titleRow.createCell(colNum);
         cell.setCellStyle(this.createDefaultBodyStyle());
         cell.setCellValue(desc);
         int endCol = colNum + desc.length() / 8;
-        CellRangeAddress cra = new CellRangeAddress(rowNum, rowNum, colNum, endCol);
-        setRegionBorder(1, cra, defaultBorderColor);
-        sheet.addMergedRegion(cra);
+        regions.add(new CellRangeAddress(rowNum, rowNum, colNum, endCol));
         return endCol;
     }
 
@@ -120,65 +301,51 @@ public class ExcelExporter<Data> extends ExcelExporterV2<Data> {
         cell.setCellStyle(this.createColorStyle(color));
     }
 
+    /**
+     * Styles are created once per workbook and shared by all cells and sheets instead of once per call, also the
+     * body styles {@link ExcelExporterV2} colors by {@link #findColor(Object)}. The first style of every key is still
+     * built by the base class; the shared styles must not be changed, which {@link #callback()} verifies.
+     */
     @Override
-    protected short findColor(Object obj) {
+    protected HSSFCellStyle createDefaultBodyStyle() {
 
-        float dailyAverageOt = (float) obj;
-        return OTColor.getColorByOtTime(dailyAverageOt);
+        return (HSSFCellStyle) this.getStyleRegistry().get(ExcelStyleRegistry.StyleKey.BODY, super::createDefaultBodyStyle);
     }
 
     @Override
-    protected Map<Integer, List<Pair<Integer, Integer>>> getMergeMetaData() {
+    protected HSSFCellStyle createColorStyle(short color) {
 
-        Map<Integer, List<Pair<Integer, Integer>>> mergeMetaDataMap = new HashMap<>(3);
-        Arrays.stream(MergeColumn.values()).forEach(x -> {
-            assembleMergeMetaData(mergeMetaDataMap, x.getColumn(), x.getClassifier());
-        });
-        return mergeMetaDataMap;
+        return (HSSFCellStyle) this.getStyleRegistry().get(ExcelStyleRegistry.StyleKey.BODY.withFillColor(color), () -> super.createColorStyle(color));
     }
 
-    private void assembleMergeMetaData(Map<Integer, List<Pair<Integer, Integer>>> mergeMetaDataMap, int column, Function<Data, String> classifier) {
+    private MergedRegionWriter getMergedRegionWriter() {
 
-        Map<String, Integer> dataMapByCamp = this.allData.stream().collect(Collectors.groupingBy(classifier, LinkedHashMap::new, Collectors.reducing(0, e -> 1, Integer::sum)));
-        Collection<Integer> dataSizes = dataMapByCamp.values();
-        int size = dataSizes.size();
-        List<Pair<Integer, Integer>> mergeMetaDatas = new ArrayList<>(size);
-        int index = 0;
-        for (Integer dataSize : dataSizes) {
-            constructMergeMetaData(mergeMetaDatas, index, dataSize);
-            index++;
+        if (mergedRegionWriter == null) {
+            mergedRegionWriter = new MergedRegionWriter(wb);
         }
-        this.removeUnnecessaryMerge(mergeMetaDatas);
-        mergeMetaDataMap.put(column, mergeMetaDatas);
+        return mergedRegionWriter;
     }
 
-    private void removeUnnecessaryMerge(List<Pair<Integer, Integer>> mergeMetaDatas) {
+    private ExcelStyleRegistry getStyleRegistry() {
 
-        List<Pair<Integer, Integer>> unnecessaryMerges = mergeMetaDatas.parallelStream().filter(x -> x.getFirst().equals(x.getSecond())).collect(Collectors.toList());
-        if (CollectionUtils.isNotEmpty(unnecessaryMerges)) {
-            mergeMetaDatas.removeAll(unnecessaryMerges);
+        if (styleRegistry == null) {
+            styleRegistry = new ExcelStyleRegistry(wb);
         }
+        return styleRegistry;
     }
 
-    private void constructMergeMetaData(List<Pair<Integer, Integer>> mergeMetaDatas, int index, Integer dataSize) {
-
-        int start = this.calMergeStart(index, mergeMetaDatas);
-        int end = this.calMergeEnd(mergeMetaDatas, start, dataSize);
-        mergeMetaDatas.add(new Pair<>(start, end));
-    }
-
-    private int calMergeEnd(List<Pair<Integer, Integer>> mergeMetaDatas, int start, int dataSize) {
+    @Override
+    protected short findColor(Object obj) {
 
-        return start + dataSize - 1;
+        return OTColor.getColorByOtTime(((Number) obj).floatValue());
     }
 
-    private int calMergeStart(int index, List<Pair<Integer, Integer>> mergeMetaDatas) {
+    @Override
+    protected Map<Integer, List<Pair<Integer, Integer>>> getMergeMetaData() {
 
-        if (index == 0) {
-            return 0;
-        } else {
-            return mergeMetaDatas.get(index - 1).getSecond() + 1;
-        }
+        List<Function<Data, ?>> levels = Arrays.stream(MergeColumn.values()).<Function<Data, ?>>map(MergeColumn::getClassifier).collect(Collectors.toList());
+        int[] columns = Arrays.stream(MergeColumn.values()).mapToInt(MergeColumn::getColumn).toArray();
+        return MergeRegionEngine.compute(this.allData, levels).toMergeMetaData(columns);
     }
 
     enum MergeColumn {
@@ -216,13 +383,28 @@ public class ExcelExporter<Data> extends ExcelExporterV2<Data> {
             this.color = color;
         }
 
-        public static short getColorByOtTime(float otTime) {
+        private static final ColorBands COLOR_BANDS = createColorBands();
 
-            Optional<OTColor> otColor = Arrays.stream(OTColor.values()).filter(x -> otTime > x.getMin() && otTime <= x.getMax()).findAny();
-            if (otColor.isPresent()) {
-                return otColor.get().getColor();
+        private static ColorBands createColorBands() {
+
+            ColorBands colorBands = ColorBands.otherwise(GREEN.getColor());
+            for (OTColor otColor : values()) {
+                colorBands = colorBands.band(otColor.getMin(), otColor.getMax(), otColor.getColor());
             }
-            return GREEN.getColor();
+            return colorBands;
+        }
+
+        public static ColorBands getColorBands() {
+
+            return COLOR_BANDS;
+        }
+
+        /**
+         * Looks up the precomputed bands, without streaming over a copy of {@code values()} per call.
+         */
+        public static short getColorByOtTime(float otTime) {
+
+            return COLOR_BANDS.colorOf(otTime);
         }
     }
 
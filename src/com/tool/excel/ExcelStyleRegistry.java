@@ -0,0 +1,182 @@
+package com.tool.excel;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Workbook scoped cache of cell styles keyed by their attributes, so every distinct style is created once and shared
+ * by all cells and sheets of the workbook. Creating a style per cell bloats the file and runs into the style limit
+ * of Excel (4,000 styles for xls, 64,000 for xlsx). Not thread safe, like the workbook itself.
+ * <p>
+ * A registered style is shared by every cell it was handed to, so it must not be changed afterwards; a different look
+ * is a different key. POI styles can not be made read-only, so the attributes of every style are recorded when it is
+ * registered and {@link #verifyUnchanged()} fails on a style that was changed since, e.g. by code it was handed to.
+ * <p>
+ * Uses the style enums of POI 3.15 or later; the exporters need POI 3.16 or later anyway, see
+ * {@link MergedRegionWriter}.
+ */
+public class ExcelStyleRegistry {
+
+    private final Workbook wb;
+    private final Map<StyleKey, CellStyle> styles = new HashMap<>();
+    private final Map<StyleKey, List<Object>> attributes = new HashMap<>();
+    private final Map<Boolean, Font> fonts = new HashMap<>();
+
+    public ExcelStyleRegistry(Workbook wb) {
+
+        this.wb = wb;
+    }
+
+    public CellStyle get(StyleKey key) {
+
+        return styles.computeIfAbsent(key, x -> this.register(x, this.createStyle(x)));
+    }
+
+    /**
+     * The style registered under {@code key}, created by {@code factory} the first time, for styles built elsewhere.
+     */
+    public CellStyle get(StyleKey key, Supplier<? extends CellStyle> factory) {
+
+        return styles.computeIfAbsent(key, x -> this.register(x, factory.get()));
+    }
+
+    public int size() {
+
+        return styles.size();
+    }
+
+    /**
+     * Fails when a registered style no longer has the attributes it was registered with, as the change applies to all
+     * cells sharing it.
+     */
+    public void verifyUnchanged() {
+
+        styles.forEach((key, style) -> {
+            if (!attributesOf(style).equals(attributes.get(key))) {
+                throw new IllegalStateException("cell style " + key + " was changed after it was registered");
+            }
+        });
+    }
+
+    private CellStyle register(StyleKey key, CellStyle style) {
+
+        attributes.put(key, attributesOf(style));
+        return style;
+    }
+
+    private static List<Object> attributesOf(CellStyle style) {
+
+        return Arrays.asList(style.getAlignmentEnum(), style.getVerticalAlignmentEnum(), style.getWrapText(), style.getRotation(),
+                style.getIndention(), style.getBorderTopEnum(), style.getBorderBottomEnum(), style.getBorderLeftEnum(),
+                style.getBorderRightEnum(), style.getTopBorderColor(), style.getBottomBorderColor(), style.getLeftBorderColor(),
+                style.getRightBorderColor(), style.getFillPatternEnum(), style.getFillForegroundColor(), style.getFillBackgroundColor(),
+                style.getDataFormat(), style.getFontIndex(), style.getHidden(), style.getLocked(), style.getShrinkToFit());
+    }
+
+    private CellStyle createStyle(StyleKey key) {
+
+        CellStyle style = wb.createCellStyle();
+        style.setAlignment(key.getAlignment());
+        style.setVerticalAlignment(key.getVerticalAlignment());
+        style.setBorderTop(key.getBorder());
+        style.setBorderBottom(key.getBorder());
+        style.setBorderLeft(key.getBorder());
+        style.setBorderRight(key.getBorder());
+        style.setTopBorderColor(key.getBorderColor());
+        style.setBottomBorderColor(key.getBorderColor());
+        style.setLeftBorderColor(key.getBorderColor());
+        style.setRightBorderColor(key.getBorderColor());
+        if (key.getFillColor() != StyleKey.NO_COLOR) {
+            style.setFillForegroundColor(key.getFillColor());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+        if (key.getDataFormat() != null) {
+            style.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat(key.getDataFormat()));
+        }
+        if (key.isBold()) {
+            style.setFont(fonts.computeIfAbsent(true, x -> {
+                Font font = wb.createFont();
+                font.setBold(true);
+                return font;
+            }));
+        }
+        return style;
+    }
+
+    /**
+     * Attributes of a cell style; {@link #BODY} is a centered cell with a thin black border, the other keys are
+     * derived from it.
+     */
+    @Getter
+    @EqualsAndHashCode
+    @ToString
+    public static final class StyleKey {
+
+        public static final short NO_COLOR = -1;
+
+        public static final StyleKey BODY = new StyleKey(false, NO_COLOR, BorderStyle.THIN, IndexedColors.BLACK.getIndex(),
+                HorizontalAlignment.CENTER, VerticalAlignment.CENTER, null);
+
+        public static final StyleKey HEADER = BODY.withBold(true).withFillColor(IndexedColors.GREY_25_PERCENT.getIndex());
+
+        private final boolean bold;
+        private final short fillColor;
+        private final BorderStyle border;
+        private final short borderColor;
+        private final HorizontalAlignment alignment;
+        private final VerticalAlignment verticalAlignment;
+        private final String dataFormat;
+
+        private StyleKey(boolean bold, short fillColor, BorderStyle border, short borderColor, HorizontalAlignment alignment,
+                         VerticalAlignment verticalAlignment, String dataFormat) {
+
+            this.bold = bold;
+            this.fillColor = fillColor;
+            this.border = border;
+            this.borderColor = borderColor;
+            this.alignment = alignment;
+            this.verticalAlignment = verticalAlignment;
+            this.dataFormat = dataFormat;
+        }
+
+        public StyleKey withBold(boolean bold) {
+
+            return new StyleKey(bold, fillColor, border, borderColor, alignment, verticalAlignment, dataFormat);
+        }
+
+        public StyleKey withFillColor(short fillColor) {
+
+            return new StyleKey(bold, fillColor, border, borderColor, alignment, verticalAlignment, dataFormat);
+        }
+
+        public StyleKey withBorder(BorderStyle border, short borderColor) {
+
+            return new StyleKey(bold, fillColor, border, borderColor, alignment, verticalAlignment, dataFormat);
+        }
+
+        public StyleKey withAlignment(HorizontalAlignment alignment, VerticalAlignment verticalAlignment) {
+
+            return new StyleKey(bold, fillColor, border, borderColor, alignment, verticalAlignment, dataFormat);
+        }
+
+        public StyleKey withDataFormat(String dataFormat) {
+
+            return new StyleKey(bold, fillColor, border, borderColor, alignment, verticalAlignment, dataFormat);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.tool.excel;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Rows of one job sheet, pulled while the sheet body is drawn instead of loaded into a list up front, so only the
+ * current page of entities is on the heap. Rows must come in sheet order, grouped by the merged columns.
+ */
+@FunctionalInterface
+public interface JobDataSource<T> {
+
+    /**
+     * Opens a new stream of the rows; it is closed once the sheet is drawn, so a repository stream may hold a cursor.
+     */
+    Stream<T> open();
+
+    static <T> JobDataSource<T> of(List<T> datas) {
+
+        List<T> rows = datas == null ? Collections.emptyList() : datas;
+        return rows::stream;
+    }
+
+    static <T> JobDataSource<T> ofIterator(Supplier<Iterator<T>> iterators) {
+
+        return () -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterators.get(), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Pages fetched by page number and size, from page 0 until a page is shorter than {@code pageSize}.
+     */
+    static <T> JobDataSource<T> paged(BiFunction<Integer, Integer, List<T>> pageFetcher, int pageSize) {
+
+        return ofIterator(() -> new PageIterator<>(new Function<T, List<T>>() {
+
+            private int pageNumber;
+
+            @Override
+            public List<T> apply(T last) {
+
+                return pageFetcher.apply(pageNumber++, pageSize);
+            }
+        }, pageSize));
+    }
+
+    /**
+     * Pages fetched after the last row of the previous page ({@code null} for the first page), until a page is
+     * shorter than {@code pageSize}. Unlike page numbers this does not make the database skip all previous rows.
+     */
+    static <T> JobDataSource<T> keyset(Function<T, List<T>> pageAfter, int pageSize) {
+
+        return ofIterator(() -> new PageIterator<>(pageAfter, pageSize));
+    }
+
+    final class PageIterator<T> implements Iterator<T> {
+
+        private final Function<T, List<T>> pageAfter;
+        private final int pageSize;
+        private List<T> page;
+        private int index;
+        private boolean lastPage;
+
+        private PageIterator(Function<T, List<T>> pageAfter, int pageSize) {
+
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("page size must be positive: " + pageSize);
+            }
+            this.pageAfter = pageAfter;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (page != null && index < page.size()) {
+                return true;
+            }
+            if (lastPage) {
+                return false;
+            }
+            T last = page == null || page.isEmpty() ? null : page.get(page.size() - 1);
+            List<T> next = pageAfter.apply(last);
+            page = next == null ? Collections.emptyList() : next;
+            index = 0;
+            lastPage = page.size() < pageSize;
+            return !page.isEmpty();
+        }
+
+        @Override
+        public T next() {
+
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+    }
+}
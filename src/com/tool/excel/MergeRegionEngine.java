@@ -0,0 +1,153 @@
+package com.tool.excel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Vertical merge regions of hierarchical columns such as region, area and camp, computed in one pass over rows
+ * sorted by those columns. Levels are given parent first; a run of equal values ends when its own value or the value
+ * of any parent level changes, so child regions always nest inside their parent region. Only adjacent rows are
+ * merged and runs of a single row are dropped. Rows are fed one at a time through {@link #add(Object)}, so the
+ * regions can be computed while the rows are streamed.
+ */
+public final class MergeRegionEngine<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<Function<T, ?>> levels;
+    private final Object[] values;
+    private final int[] runStarts;
+    private final int[][] firsts;
+    private final int[][] lasts;
+    private final int[] sizes;
+    private int rows;
+
+    public MergeRegionEngine(List<Function<T, ?>> levels) {
+
+        int levelSize = levels.size();
+        this.levels = new ArrayList<>(levels);
+        this.values = new Object[levelSize];
+        this.runStarts = new int[levelSize];
+        this.firsts = new int[levelSize][INITIAL_CAPACITY];
+        this.lasts = new int[levelSize][INITIAL_CAPACITY];
+        this.sizes = new int[levelSize];
+    }
+
+    public static <T> MergeRegions compute(List<T> datas, List<Function<T, ?>> levels) {
+
+        MergeRegionEngine<T> engine = new MergeRegionEngine<>(levels);
+        datas.forEach(engine::add);
+        return engine.finish();
+    }
+
+    public void add(T data) {
+
+        int changedLevel = rows == 0 ? 0 : levels.size();
+        for (int i = 0; i < levels.size(); i++) {
+            Object value = levels.get(i).apply(data);
+            if (i >= changedLevel || !Objects.equals(value, values[i])) {
+                if (i < changedLevel) {
+                    changedLevel = i;
+                }
+                if (rows > 0) {
+                    this.closeRun(i);
+                }
+                values[i] = value;
+                runStarts[i] = rows;
+            }
+        }
+        rows++;
+    }
+
+    /**
+     * Regions of the rows added so far; the engine can not be fed after this.
+     */
+    public MergeRegions finish() {
+
+        if (rows > 0) {
+            for (int i = 0; i < levels.size(); i++) {
+                this.closeRun(i);
+            }
+        }
+        int[][] levelFirsts = new int[levels.size()][];
+        int[][] levelLasts = new int[levels.size()][];
+        for (int i = 0; i < levels.size(); i++) {
+            levelFirsts[i] = Arrays.copyOf(firsts[i], sizes[i]);
+            levelLasts[i] = Arrays.copyOf(lasts[i], sizes[i]);
+        }
+        return new MergeRegions(levelFirsts, levelLasts);
+    }
+
+    private void closeRun(int level) {
+
+        int last = rows - 1;
+        if (last <= runStarts[level]) {
+            return;
+        }
+        int size = sizes[level];
+        if (size == firsts[level].length) {
+            firsts[level] = Arrays.copyOf(firsts[level], size * 2);
+            lasts[level] = Arrays.copyOf(lasts[level], size * 2);
+        }
+        firsts[level][size] = runStarts[level];
+        lasts[level][size] = last;
+        sizes[level] = size + 1;
+    }
+
+    /**
+     * Row ranges to merge per level, as 0 based row indexes of the fed rows in ascending order.
+     */
+    public static final class MergeRegions {
+
+        private final int[][] firsts;
+        private final int[][] lasts;
+
+        MergeRegions(int[][] firsts, int[][] lasts) {
+
+            this.firsts = firsts;
+            this.lasts = lasts;
+        }
+
+        public int levels() {
+
+            return firsts.length;
+        }
+
+        public int size(int level) {
+
+            return firsts[level].length;
+        }
+
+        public int first(int level, int index) {
+
+            return firsts[level][index];
+        }
+
+        public int last(int level, int index) {
+
+            return lasts[level][index];
+        }
+
+        /**
+         * The regions in the merge metadata format of {@link ExcelCellMergeMetaDataGenerator}, {@code columns}
+         * holding the sheet column of every level.
+         */
+        public Map<Integer, List<Pair<Integer, Integer>>> toMergeMetaData(int... columns) {
+
+            Map<Integer, List<Pair<Integer, Integer>>> mergeMetaDataMap = new HashMap<>(columns.length);
+            for (int level = 0; level < columns.length; level++) {
+                List<Pair<Integer, Integer>> mergeMetaDatas = new ArrayList<>(this.size(level));
+                for (int i = 0; i < this.size(level); i++) {
+                    mergeMetaDatas.add(new Pair<>(firsts[level][i], lasts[level][i]));
+                }
+                mergeMetaDataMap.put(columns[level], mergeMetaDatas);
+            }
+            return mergeMetaDataMap;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.tool.excel;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Adds merged regions and their borders in bulk. {@code Sheet.addMergedRegion} validates every new region against
+ * all regions of the sheet, which gets quadratically slower with thousands of regions, and {@code RegionUtil} looks
+ * up a matching style in the whole workbook for every border cell. Here overlaps are checked once with a sweep over
+ * the regions sorted by first row, regions are added without per-call validation, and border styles are derived
+ * once per original style and side combination. Workbook scoped and not thread safe.
+ * <p>
+ * Needs POI 3.16 or later for {@code addMergedRegionUnsafe} and the {@link BorderStyle} setters.
+ */
+public class MergedRegionWriter {
+
+    private static final int TOP = 1;
+    private static final int BOTTOM = 2;
+    private static final int LEFT = 4;
+    private static final int RIGHT = 8;
+
+    private final Workbook wb;
+    private final Map<Long, CellStyle> borderStyles = new HashMap<>();
+
+    public MergedRegionWriter(Workbook wb) {
+
+        this.wb = wb;
+    }
+
+    /**
+     * Adds {@code regions} to {@code sheet}; throws if a region has a single cell or overlaps another region, of
+     * {@code regions} or already on the sheet, in which case none is added.
+     */
+    public void addMergedRegions(Sheet sheet, Collection<CellRangeAddress> regions) {
+
+        List<CellRangeAddress> all = new ArrayList<>(sheet.getNumMergedRegions() + regions.size());
+        for (int i = 0; i < sheet.getNumMergedRegions(); i++) {
+            all.add(sheet.getMergedRegion(i));
+        }
+        for (CellRangeAddress region : regions) {
+            if (region.getNumberOfCells() < 2) {
+                throw new IllegalArgumentException("merged region " + region.formatAsString() + " must contain 2 or more cells");
+            }
+            all.add(region);
+        }
+        checkOverlaps(all);
+        regions.forEach(sheet::addMergedRegionUnsafe);
+    }
+
+    /**
+     * Draws a border of {@code border} style and {@code borderColor} around every region, like {@code RegionUtil}
+     * does for one region. With a streaming sheet the rows of the regions must still be in the window.
+     */
+    public void setRegionBorders(Sheet sheet, Collection<CellRangeAddress> regions, BorderStyle border, short borderColor) {
+
+        for (CellRangeAddress region : regions) {
+            for (int rowNum = region.getFirstRow(); rowNum <= region.getLastRow(); rowNum++) {
+                int rowSides = (rowNum == region.getFirstRow() ? TOP : 0) | (rowNum == region.getLastRow() ? BOTTOM : 0);
+                Row row = sheet.getRow(rowNum);
+                if (row == null) {
+                    row = sheet.createRow(rowNum);
+                }
+                for (int colNum = region.getFirstColumn(); colNum <= region.getLastColumn(); colNum++) {
+                    int sides = rowSides | (colNum == region.getFirstColumn() ? LEFT : 0) | (colNum == region.getLastColumn() ? RIGHT : 0);
+                    if (sides != 0) {
+                        Cell cell = row.getCell(colNum);
+                        if (cell == null) {
+                            cell = row.createCell(colNum);
+                        }
+                        cell.setCellStyle(this.getBorderStyle(cell.getCellStyle(), sides, border, borderColor));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sweep over the regions by first row; the active regions are the ones whose rows reach the current region, so
+     * for regions of a few rows each check only meets the regions of neighbouring columns.
+     */
+    static void checkOverlaps(List<CellRangeAddress> regions) {
+
+        regions.sort(Comparator.comparingInt(CellRangeAddress::getFirstRow));
+        PriorityQueue<CellRangeAddress> active = new PriorityQueue<>(Comparator.comparingInt(CellRangeAddress::getLastRow));
+        for (CellRangeAddress region : regions) {
+            while (!active.isEmpty() && active.peek().getLastRow() < region.getFirstRow()) {
+                active.poll();
+            }
+            for (CellRangeAddress other : active) {
+                if (other.getFirstColumn() <= region.getLastColumn() && region.getFirstColumn() <= other.getLastColumn()) {
+                    throw new IllegalStateException("merged region " + region.formatAsString() + " overlaps " + other.formatAsString());
+                }
+            }
+            active.add(region);
+        }
+    }
+
+    private CellStyle getBorderStyle(CellStyle original, int sides, BorderStyle border, short borderColor) {
+
+        long key = ((original.getIndex() & 0xffffL) << 32) | ((long) border.ordinal() << 24) | ((long) (borderColor & 0xffff) << 8) | sides;
+        return borderStyles.computeIfAbsent(key, x -> {
+            CellStyle style = wb.createCellStyle();
+            style.cloneStyleFrom(original);
+            if ((sides & TOP) != 0) {
+                style.setBorderTop(border);
+                style.setTopBorderColor(borderColor);
+            }
+            if ((sides & BOTTOM) != 0) {
+                style.setBorderBottom(border);
+                style.setBottomBorderColor(borderColor);
+            }
+            if ((sides & LEFT) != 0) {
+                style.setBorderLeft(border);
+                style.setLeftBorderColor(borderColor);
+            }
+            if ((sides & RIGHT) != 0) {
+                style.setBorderRight(border);
+                style.setRightBorderColor(borderColor);
+            }
+            return style;
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.tool.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The visible columns of one sheet compiled once into a list of cell resolvers, each bound to its typed accessor and
+ * resolved styles, so rendering a row is a plain loop without per-cell column lookups. Numeric columns of
+ * {@link ExcelColumn#ofNumber} are read and colored without boxing, band styles are resolved up front from the
+ * {@link ColorBands}; only the other columns still go through the boxed value and its type.
+ * <p>
+ * Rendering is split in two steps: {@link #resolve} reads the values and picks the styles of a range of rows into a
+ * {@link RowWindow} without touching the workbook, so it may run on any thread; {@link #write} then creates the cells
+ * on the thread writing the workbook. {@link #render} does both for a single row.
+ */
+final class RowRenderer<T> {
+
+    private static final byte BLANK = 0;
+    private static final byte NUMBER = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte DATE = 3;
+    private static final byte STRING = 4;
+
+    private static final int BODY_STYLE = 0;
+    private static final int DATE_STYLE = 1;
+    private static final int BAND_STYLES = 2;
+
+    private final List<CellResolver<T>> resolvers;
+    private final CellStyle[] styles;
+    private final RowWindow single;
+
+    RowRenderer(List<ExcelColumn<T>> visibleColumns, ColorBands colorBands, CellStyle bodyStyle, CellStyle dateStyle,
+                IntFunction<CellStyle> colorStyles) {
+
+        this.styles = new CellStyle[BAND_STYLES + colorBands.size() + 1];
+        styles[BODY_STYLE] = bodyStyle;
+        styles[DATE_STYLE] = dateStyle;
+        for (int band = -1; band < colorBands.size(); band++) {
+            short color = colorBands.getColor(band);
+            styles[BAND_STYLES + band + 1] = color < 0 ? bodyStyle : colorStyles.apply(color);
+        }
+        this.resolvers = new ArrayList<>(visibleColumns.size());
+        for (ExcelColumn<T> column : visibleColumns) {
+            resolvers.add(compile(column, colorBands));
+        }
+        this.single = this.newWindow(1);
+    }
+
+    void render(T data, Row row) {
+
+        int offset = 0;
+        for (CellResolver<T> resolver : resolvers) {
+            resolver.resolve(data, single, offset++);
+        }
+        this.writeRow(single, 0, row);
+    }
+
+    RowWindow newWindow(int rows) {
+
+        return new RowWindow(rows * resolvers.size());
+    }
+
+    /**
+     * Resolves the rows {@code from} (inclusive) to {@code to} (exclusive) of {@code datas} into {@code window}, which
+     * must hold that many rows; thread safe as long as the column value functions are.
+     */
+    RowWindow resolve(List<T> datas, int from, int to, RowWindow window) {
+
+        int offset = 0;
+        for (T data : datas.subList(from, to)) {
+            for (CellResolver<T> resolver : resolvers) {
+                resolver.resolve(data, window, offset++);
+            }
+        }
+        window.rows = to - from;
+        return window;
+    }
+
+    /**
+     * Creates the rows of {@code window} on {@code sheet}, the first one at {@code firstRowNum}.
+     */
+    void write(RowWindow window, Sheet sheet, int firstRowNum) {
+
+        for (int i = 0; i < window.rows; i++) {
+            this.writeRow(window, i * resolvers.size(), sheet.createRow(firstRowNum + i));
+        }
+    }
+
+    private void writeRow(RowWindow window, int offset, Row row) {
+
+        for (int i = 0; i < resolvers.size(); i++, offset++) {
+            Cell cell = row.createCell(i);
+            switch (window.types[offset]) {
+                case NUMBER:
+                    cell.setCellValue(window.numbers[offset]);
+                    break;
+                case BOOLEAN:
+                    cell.setCellValue(window.numbers[offset] != 0);
+                    break;
+                case DATE:
+                    cell.setCellValue((Date) window.objects[offset]);
+                    break;
+                case STRING:
+                    cell.setCellValue((String) window.objects[offset]);
+                    break;
+                default:
+                    break;
+            }
+            cell.setCellStyle(styles[window.styles[offset]]);
+        }
+    }
+
+    private static <T> CellResolver<T> compile(ExcelColumn<T> column, ColorBands colorBands) {
+
+        ToDoubleFunction<T> numberValue = column.getNumberValue();
+        if (numberValue != null && column.isColored()) {
+            return (data, window, offset) -> {
+                double value = numberValue.applyAsDouble(data);
+                window.set(offset, NUMBER, value, null, BAND_STYLES + colorBands.bandOf(value) + 1);
+            };
+        }
+        if (numberValue != null) {
+            return (data, window, offset) -> window.set(offset, NUMBER, numberValue.applyAsDouble(data), null, BODY_STYLE);
+        }
+        Function<T, Object> value = column.getValue();
+        boolean colored = column.isColored();
+        return (data, window, offset) -> {
+            Object object = value.apply(data);
+            if (object == null) {
+                window.set(offset, BLANK, 0, null, BODY_STYLE);
+            } else if (object instanceof Number) {
+                double number = ((Number) object).doubleValue();
+                window.set(offset, NUMBER, number, null, colored ? BAND_STYLES + colorBands.bandOf(number) + 1 : BODY_STYLE);
+            } else if (object instanceof Date) {
+                window.set(offset, DATE, 0, object, DATE_STYLE);
+            } else if (object instanceof Boolean) {
+                window.set(offset, BOOLEAN, (Boolean) object ? 1 : 0, null, BODY_STYLE);
+            } else {
+                window.set(offset, STRING, 0, object.toString(), BODY_STYLE);
+            }
+        };
+    }
+
+    /**
+     * Resolved cells of a range of rows, row by row: the cell type, the number or object value and the index of the
+     * style. Reused from range to range, so it holds a bounded number of rows however large the sheet is.
+     */
+    static final class RowWindow {
+
+        private final byte[] types;
+        private final double[] numbers;
+        private final Object[] objects;
+        private final int[] styles;
+        private int rows;
+
+        private RowWindow(int cells) {
+
+            this.types = new byte[cells];
+            this.numbers = new double[cells];
+            this.objects = new Object[cells];
+            this.styles = new int[cells];
+        }
+
+        private void set(int offset, byte type, double number, Object object, int style) {
+
+            types[offset] = type;
+            numbers[offset] = number;
+            objects[offset] = object;
+            styles[offset] = style;
+        }
+    }
+
+    @FunctionalInterface
+    private interface CellResolver<T> {
+
+        void resolve(T data, RowWindow window, int offset);
+    }
+}
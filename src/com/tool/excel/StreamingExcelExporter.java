@@ -0,0 +1,353 @@
+package com.tool.excel;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * xlsx counterpart of {@link ExcelExporter} on {@link SXSSFWorkbook}: only a sliding window of {@code windowSize}
+ * rows per sheet is kept in memory, older rows are flushed to compressed temp files, so memory stays flat however
+ * many rows are written, and sheets are not capped at the 65,536 rows of HSSF. Sheets get the same layout: an
+ * optional legend title line, the group and sub header rows, and the body with colored and merged columns.
+ * <p>
+ * Rows can not be revisited once they left the window, so every sheet is drawn top to bottom in one go.
+ * {@link #close()} deletes the temp files.
+ */
+@Slf4j
+public class StreamingExcelExporter<T> implements Closeable {
+
+    public static final int DEFAULT_WINDOW_SIZE = 500;
+
+    /**
+     * Rows resolved at a time by {@link #drawSheet(SheetModel, Executor)}.
+     */
+    public static final int PREPARED_WINDOW_ROWS = 1000;
+
+    private static final String DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    private final SXSSFWorkbook wb;
+    private final List<ExcelColumn<T>> columns;
+    private final Locale locale;
+    private final List<Legend> legends;
+    private final ColorBands colorBands;
+    private final ExcelStyleRegistry styleRegistry;
+    private final MergedRegionWriter mergedRegionWriter;
+    private final CellStyle headerStyle;
+    private final CellStyle bodyStyle;
+    private final CellStyle dateStyle;
+
+    /**
+     * @param colorBands fill colors of the cells of {@link ExcelColumn#colored() colored} columns, which must be numeric
+     */
+    public StreamingExcelExporter(List<ExcelColumn<T>> columns, Locale locale, List<Legend> legends, ColorBands colorBands) {
+
+        this(columns, locale, legends, colorBands, DEFAULT_WINDOW_SIZE);
+    }
+
+    public StreamingExcelExporter(List<ExcelColumn<T>> columns, Locale locale, List<Legend> legends, ColorBands colorBands,
+                                  int windowSize) {
+
+        this.wb = new SXSSFWorkbook(windowSize);
+        this.wb.setCompressTempFiles(true);
+        this.columns = columns;
+        this.locale = locale;
+        this.legends = legends;
+        this.colorBands = colorBands;
+        this.styleRegistry = new ExcelStyleRegistry(wb);
+        this.mergedRegionWriter = new MergedRegionWriter(wb);
+        this.headerStyle = styleRegistry.get(ExcelStyleRegistry.StyleKey.HEADER);
+        this.bodyStyle = styleRegistry.get(ExcelStyleRegistry.StyleKey.BODY);
+        this.dateStyle = styleRegistry.get(ExcelStyleRegistry.StyleKey.BODY.withDataFormat(DATE_FORMAT));
+    }
+
+    /**
+     * Draws one sheet; the legend line is drawn for {@code hasLegend}, otherwise the header starts at row 1 like in
+     * {@link ExcelExporter}. Columns whose name is in {@code hiddenColumns} are left out.
+     */
+    public void drawSheet(String name, List<T> datas, Set<String> hiddenColumns, boolean hasLegend) {
+
+        List<ExcelColumn<T>> visibleColumns = this.getVisibleColumns(hiddenColumns);
+        SXSSFSheet sheet = this.createSheet(name, visibleColumns);
+        int rowNum = this.drawHead(sheet, visibleColumns, hasLegend ? this.drawTitleLine(sheet, 0) : 1);
+        this.drawBody(sheet, visibleColumns, datas.iterator(), rowNum);
+    }
+
+    /**
+     * Like {@link #drawSheet(String, List, Set, boolean)}, but rows are pulled from {@code source} while the body is
+     * drawn, and merged regions are computed along, so only the rows in the window are held. No sheet is created
+     * when the source has no rows.
+     *
+     * @return whether the sheet is drawn
+     */
+    public boolean drawSheet(String name, JobDataSource<T> source, Set<String> hiddenColumns, boolean hasLegend) {
+
+        try (Stream<T> rows = source.open()) {
+            Iterator<T> datas = rows.iterator();
+            if (!datas.hasNext()) {
+                return false;
+            }
+            List<ExcelColumn<T>> visibleColumns = this.getVisibleColumns(hiddenColumns);
+            SXSSFSheet sheet = this.createSheet(name, visibleColumns);
+            int rowNum = this.drawHead(sheet, visibleColumns, hasLegend ? this.drawTitleLine(sheet, 0) : 1);
+            this.drawBody(sheet, visibleColumns, datas, rowNum);
+            return true;
+        }
+    }
+
+    /**
+     * Prepares a sheet on {@code executor} without touching the workbook, so several sheets can be prepared
+     * concurrently: the merged regions of all rows and the cells of the first {@link #PREPARED_WINDOW_ROWS} rows are
+     * resolved. The column value functions must be thread safe. Called from the thread writing the workbook, which
+     * creates the styles of the sheet up front.
+     */
+    public CompletableFuture<SheetModel<T>> prepareSheetAsync(String name, List<T> datas, Set<String> hiddenColumns, boolean hasLegend,
+                                                              Executor executor) {
+
+        List<ExcelColumn<T>> visibleColumns = this.getVisibleColumns(hiddenColumns);
+        RowRenderer<T> rowRenderer = this.createRowRenderer(visibleColumns);
+        return CompletableFuture.supplyAsync(() -> {
+            MergeRegionEngine<T> mergeRegionEngine = this.createMergeRegionEngine(visibleColumns);
+            datas.forEach(mergeRegionEngine::add);
+            RowRenderer.RowWindow firstRows = rowRenderer.resolve(datas, 0, Math.min(datas.size(), PREPARED_WINDOW_ROWS),
+                    rowRenderer.newWindow(PREPARED_WINDOW_ROWS));
+            return new SheetModel<>(name, visibleColumns, hasLegend, datas, rowRenderer, firstRows, mergeRegionEngine.finish());
+        }, executor);
+    }
+
+    /**
+     * Draws a sheet prepared by {@link #prepareSheetAsync}; like all drawing, only from the one thread writing the
+     * workbook. While a window of rows is written the next one is resolved on {@code executor}, so at most two windows
+     * of the sheet are held besides its rows.
+     */
+    public void drawSheet(SheetModel<T> model, Executor executor) {
+
+        SXSSFSheet sheet = this.createSheet(model.getName(), model.getVisibleColumns());
+        int startRowNum = this.drawHead(sheet, model.getVisibleColumns(), model.isHasLegend() ? this.drawTitleLine(sheet, 0) : 1);
+        RowRenderer<T> rowRenderer = model.getRowRenderer();
+        List<T> datas = model.getDatas();
+        RowRenderer.RowWindow window = model.getFirstRows();
+        RowRenderer.RowWindow spare = rowRenderer.newWindow(PREPARED_WINDOW_ROWS);
+        for (int from = 0; from < datas.size(); from += PREPARED_WINDOW_ROWS) {
+            int nextFrom = from + PREPARED_WINDOW_ROWS;
+            CompletableFuture<RowRenderer.RowWindow> next = null;
+            if (nextFrom < datas.size()) {
+                RowRenderer.RowWindow nextWindow = spare;
+                next = CompletableFuture.supplyAsync(() -> rowRenderer.resolve(datas, nextFrom,
+                        Math.min(datas.size(), nextFrom + PREPARED_WINDOW_ROWS), nextWindow), executor);
+            }
+            rowRenderer.write(window, sheet, startRowNum + from);
+            if (next != null) {
+                spare = window;
+                window = next.join();
+            }
+        }
+        this.addMergedRegions(sheet, model.getVisibleColumns(), model.getMergeRegions(), startRowNum);
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+
+        wb.write(outputStream);
+    }
+
+    @Override
+    public void close() {
+
+        if (!wb.dispose()) {
+            log.warn("temp files of streaming workbook are not deleted");
+        }
+    }
+
+    private List<ExcelColumn<T>> getVisibleColumns(Set<String> hiddenColumns) {
+
+        return columns.stream().filter(x -> !hiddenColumns.contains(x.getName())).collect(Collectors.toList());
+    }
+
+    private SXSSFSheet createSheet(String name, List<ExcelColumn<T>> visibleColumns) {
+
+        SXSSFSheet sheet = wb.createSheet(name);
+        for (int i = 0; i < visibleColumns.size(); i++) {
+            sheet.setColumnWidth(i, visibleColumns.get(i).getWidth() * 256);
+        }
+        return sheet;
+    }
+
+    private int drawTitleLine(SXSSFSheet sheet, int rowNum) {
+
+        Row titleRow = sheet.createRow(rowNum);
+        List<CellRangeAddress> regions = new ArrayList<>(legends.size());
+        int colNum = 0;
+        for (Legend legend : legends) {
+            titleRow.createCell(colNum).setCellStyle(this.getColorStyle(legend.getColor()));
+            colNum = this.drawDesc(titleRow, rowNum, colNum + 1, MessageSourceService.getMessage(legend.getMessageKey(), locale), regions) + 1;
+        }
+        ExcelStyleRegistry.StyleKey body = ExcelStyleRegistry.StyleKey.BODY;
+        mergedRegionWriter.setRegionBorders(sheet, regions, body.getBorder(), body.getBorderColor());
+        // a description of a single cell is bordered like the others but can not be merged
+        mergedRegionWriter.addMergedRegions(sheet, regions.stream().filter(x -> x.getNumberOfCells() > 1).collect(Collectors.toList()));
+        return rowNum + 2;
+    }
+
+    private int drawDesc(Row titleRow, int rowNum, int colNum, String desc, List<CellRangeAddress> regions) {
+
+        Cell cell = titleRow.createCell(colNum);
+        cell.setCellStyle(bodyStyle);
+        cell.setCellValue(desc);
+        int endCol = colNum + desc.length() / 8;
+        regions.add(new CellRangeAddress(rowNum, rowNum, colNum, endCol));
+        return endCol;
+    }
+
+    private int drawHead(SXSSFSheet sheet, List<ExcelColumn<T>> visibleColumns, int rowNum) {
+
+        Row groupRow = sheet.createRow(rowNum);
+        Row subRow = sheet.createRow(rowNum + 1);
+        List<CellRangeAddress> regions = new ArrayList<>();
+        int colNum = 0;
+        while (colNum < visibleColumns.size()) {
+            ExcelColumn<T> column = visibleColumns.get(colNum);
+            if (column.getGroupKey() == null) {
+                this.createHeaderCell(groupRow, colNum, MessageSourceService.getMessage(column.getHeaderKey(), locale));
+                this.createHeaderCell(subRow, colNum, null);
+                regions.add(new CellRangeAddress(rowNum, rowNum + 1, colNum, colNum));
+                colNum++;
+                continue;
+            }
+            int groupEnd = colNum;
+            while (groupEnd + 1 < visibleColumns.size() && column.getGroupKey().equals(visibleColumns.get(groupEnd + 1).getGroupKey())) {
+                groupEnd++;
+            }
+            this.createHeaderCell(groupRow, colNum, MessageSourceService.getMessage(column.getGroupKey(), locale));
+            for (int i = colNum; i <= groupEnd; i++) {
+                if (i > colNum) {
+                    this.createHeaderCell(groupRow, i, null);
+                }
+                this.createHeaderCell(subRow, i, MessageSourceService.getMessage(visibleColumns.get(i).getHeaderKey(), locale));
+            }
+            if (groupEnd > colNum) {
+                regions.add(new CellRangeAddress(rowNum, rowNum, colNum, groupEnd));
+            }
+            colNum = groupEnd + 1;
+        }
+        mergedRegionWriter.addMergedRegions(sheet, regions);
+        return rowNum + 2;
+    }
+
+    private void createHeaderCell(Row row, int colNum, String value) {
+
+        Cell cell = row.createCell(colNum);
+        cell.setCellStyle(headerStyle);
+        if (value != null) {
+            cell.setCellValue(value);
+        }
+    }
+
+    private void drawBody(SXSSFSheet sheet, List<ExcelColumn<T>> visibleColumns, Iterator<T> datas, int startRowNum) {
+
+        MergeRegionEngine<T> mergeRegionEngine = this.createMergeRegionEngine(visibleColumns);
+        RowRenderer<T> rowRenderer = this.createRowRenderer(visibleColumns);
+        int rowNum = startRowNum;
+        while (datas.hasNext()) {
+            T data = datas.next();
+            rowRenderer.render(data, sheet.createRow(rowNum++));
+            mergeRegionEngine.add(data);
+        }
+        this.addMergedRegions(sheet, visibleColumns, mergeRegionEngine.finish(), startRowNum);
+    }
+
+    private RowRenderer<T> createRowRenderer(List<ExcelColumn<T>> visibleColumns) {
+
+        return new RowRenderer<>(visibleColumns, colorBands, bodyStyle, dateStyle, x -> this.getColorStyle((short) x));
+    }
+
+    private MergeRegionEngine<T> createMergeRegionEngine(List<ExcelColumn<T>> visibleColumns) {
+
+        return new MergeRegionEngine<>(visibleColumns.stream().filter(ExcelColumn::isMerged).<Function<T, ?>>map(ExcelColumn::getValue)
+                .collect(Collectors.toList()));
+    }
+
+    private void addMergedRegions(SXSSFSheet sheet, List<ExcelColumn<T>> visibleColumns, MergeRegionEngine.MergeRegions mergeRegions,
+                                  int startRowNum) {
+
+        List<CellRangeAddress> regions = new ArrayList<>();
+        int level = 0;
+        for (int column = 0; column < visibleColumns.size(); column++) {
+            if (!visibleColumns.get(column).isMerged()) {
+                continue;
+            }
+            for (int i = 0; i < mergeRegions.size(level); i++) {
+                regions.add(new CellRangeAddress(startRowNum + mergeRegions.first(level, i), startRowNum + mergeRegions.last(level, i), column, column));
+            }
+            level++;
+        }
+        mergedRegionWriter.addMergedRegions(sheet, regions);
+    }
+
+    private CellStyle getColorStyle(short color) {
+
+        return styleRegistry.get(ExcelStyleRegistry.StyleKey.BODY.withFillColor(color));
+    }
+
+    /**
+     * A sheet ready to be drawn: its rows with their compiled renderer, the resolved cells of the first rows and the
+     * merged regions, rows relative to the first body row.
+     */
+    @Getter(AccessLevel.PRIVATE)
+    public static final class SheetModel<T> {
+
+        private final String name;
+        private final List<ExcelColumn<T>> visibleColumns;
+        private final boolean hasLegend;
+        private final List<T> datas;
+        private final RowRenderer<T> rowRenderer;
+        private final RowRenderer.RowWindow firstRows;
+        private final MergeRegionEngine.MergeRegions mergeRegions;
+
+        private SheetModel(String name, List<ExcelColumn<T>> visibleColumns, boolean hasLegend, List<T> datas, RowRenderer<T> rowRenderer,
+                           RowRenderer.RowWindow firstRows, MergeRegionEngine.MergeRegions mergeRegions) {
+
+            this.name = name;
+            this.visibleColumns = visibleColumns;
+            this.hasLegend = hasLegend;
+            this.datas = datas;
+            this.rowRenderer = rowRenderer;
+            this.firstRows = firstRows;
+            this.mergeRegions = mergeRegions;
+        }
+    }
+
+    /**
+     * A color sample of the title line followed by its description.
+     */
+    @Getter
+    public static final class Legend {
+
+        private final short color;
+        private final String messageKey;
+
+        public Legend(short color, String messageKey) {
+
+            this.color = color;
+            this.messageKey = messageKey;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.tool.dataSync;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.junit.Test;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Diffs rows into a change set, writes it with {@link ChangeSetWriter}, reads it back with {@link ChangeSetReader} and
+ * replays it; stage, target and log must receive the same writes as a {@link AbstractIncSyncServiceImpl#syncData}
+ * of the same rows.
+ */
+public class ChangeSetRoundTripTest {
+
+    @Test
+    public void replayWritesLikeSyncData() throws IOException {
+
+        RoundTripService syncService = new RoundTripService();
+        syncService.syncData(sources(), stages());
+
+        RoundTripService replayService = new RoundTripService();
+        List<RoundTripStage> stages = stages();
+        ByteArrayOutputStream changeSet = new ByteArrayOutputStream();
+        try (ChangeSetWriter writer = new ChangeSetWriter(changeSet)) {
+            replayService.diffData(sources(), stages, writer);
+        }
+        assertEquals(Arrays.asList("UPDATE otHours", "INSERT", "DELETE", "DELETE"), describe(changeSet.toByteArray()));
+        // the dry run leaves the stage rows as they are
+        assertEquals(stages().toString(), stages.toString());
+        assertEquals(Collections.emptyList(), replayService.stage.writes);
+
+        try (ChangeSetReader reader = new ChangeSetReader(new ByteArrayInputStream(changeSet.toByteArray()))) {
+            replayService.replayChangeSet(reader);
+        }
+        assertEquals(syncService.stage.sortedWrites(), replayService.stage.sortedWrites());
+        assertEquals(syncService.target.sortedWrites(), replayService.target.sortedWrites());
+        assertEquals(syncService.log.sortedWrites(), replayService.log.sortedWrites());
+        assertEquals(4, syncService.stage.writes.size());
+    }
+
+    @Test
+    public void dryRunReportsToTheMetricsListener() {
+
+        RoundTripService service = new RoundTripService();
+        service.diffData(sources(), stages(), x -> {
+        });
+
+        Map<SyncAction, Long> expected = new EnumMap<>(SyncAction.class);
+        expected.put(SyncAction.DEFAULT, 2L);
+        expected.put(SyncAction.INSERT, 1L);
+        expected.put(SyncAction.UPDATE, 1L);
+        expected.put(SyncAction.DELETE, 2L);
+        assertEquals(expected, service.rows);
+    }
+
+    private static List<String> describe(byte[] changeSet) throws IOException {
+
+        List<String> changes = new ArrayList<>();
+        try (ChangeSetReader reader = new ChangeSetReader(new ByteArrayInputStream(changeSet))) {
+            reader.forEachRemaining(x -> changes.add(x.getChanges() == null ? x.getAction().name()
+                    : x.getAction() + " " + String.join(",", new TreeSet<>(toList(x.getChanges().fieldNames())))));
+        }
+        return changes;
+    }
+
+    private static <T> List<T> toList(Iterator<T> iterator) {
+
+        List<T> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+
+    /**
+     * Employee 1 is unchanged, 2 changes its hours, 3 has a duplicate stage row, 4 is new and 5 is gone.
+     */
+    private static List<RoundTripSource> sources() {
+
+        return Arrays.asList(source(1, "a", 1.5f), source(2, "b", 3f), source(3, "c", 0.5f), source(4, "d", 2f));
+    }
+
+    private static List<RoundTripStage> stages() {
+
+        return Arrays.asList(stage(1, "a", 1.5f), stage(2, "b", 2.5f), stage(3, "c", 0.5f), stage(3, "c", 0.5f),
+                stage(5, "e", 4f));
+    }
+
+    private static RoundTripSource source(long employeeId, String name, float otHours) {
+
+        RoundTripSource source = new RoundTripSource();
+        source.setEmployeeId(employeeId);
+        source.setEmployeeName(name);
+        source.setOtHours(otHours);
+        return source;
+    }
+
+    private static RoundTripStage stage(long employeeId, String name, float otHours) {
+
+        RoundTripStage stage = new RoundTripStage();
+        stage.setEmployeeId(employeeId);
+        stage.setEmployeeName(name);
+        stage.setOtHours(otHours);
+        return stage;
+    }
+
+    static final class RoundTripService extends AbstractIncSyncServiceImpl<RoundTripSource, RoundTripStage, RoundTripTarget, RoundTripLog> {
+
+        private final RecordingStrategy<RoundTripStage> stage = new RecordingStrategy<>();
+        private final RecordingStrategy<RoundTripTarget> target = new RecordingStrategy<>();
+        private final RecordingStrategy<RoundTripLog> log = new RecordingStrategy<>();
+        private final Map<SyncAction, Long> rows = new EnumMap<>(SyncAction.class);
+
+        @Override
+        protected Object composeStageUniqueObj(RoundTripStage x) {
+
+            return x.getEmployeeId();
+        }
+
+        @Override
+        protected Object composeSourceUniqueObj(RoundTripSource source) {
+
+            return source.getEmployeeId();
+        }
+
+        @Override
+        protected RoundTripStage newInstanceOfStage() {
+
+            return new RoundTripStage();
+        }
+
+        @Override
+        protected RoundTripSource newInstanceOfSource() {
+
+            return new RoundTripSource();
+        }
+
+        @Override
+        protected RoundTripLog newInstanceOfLog() {
+
+            return new RoundTripLog();
+        }
+
+        @Override
+        protected RoundTripTarget newInstanceOfTarget() {
+
+            return new RoundTripTarget();
+        }
+
+        @Override
+        protected JpaRepository getStageJpaRepository() {
+
+            return null;
+        }
+
+        @Override
+        protected JpaRepository getTargetJpaRepository() {
+
+            return null;
+        }
+
+        @Override
+        protected JpaRepository getLogJpaRepository() {
+
+            return null;
+        }
+
+        @Override
+        protected SyncPersistenceStrategy<RoundTripStage> getStagePersistenceStrategy() {
+
+            return stage;
+        }
+
+        @Override
+        protected SyncPersistenceStrategy<RoundTripTarget> getTargetPersistenceStrategy() {
+
+            return target;
+        }
+
+        @Override
+        protected SyncPersistenceStrategy<RoundTripLog> getLogPersistenceStrategy() {
+
+            return log;
+        }
+
+        @Override
+        protected SyncMetricsListener getMetricsListener() {
+
+            return new SyncMetricsListener() {
+
+                @Override
+                public void onRows(String table, SyncAction action, long count) {
+
+                    rows.merge(action, count, Long::sum);
+                }
+            };
+        }
+    }
+
+    /**
+     * Records every write as the operation, the row and, for updates, the dirty properties.
+     */
+    static final class RecordingStrategy<E> implements SyncPersistenceStrategy<E> {
+
+        private final List<String> writes = new ArrayList<>();
+
+        @Override
+        public void insert(List<E> entities) {
+
+            entities.forEach(x -> writes.add("insert " + x));
+        }
+
+        @Override
+        public void update(List<E> entities) {
+
+            entities.forEach(x -> writes.add("update " + x));
+        }
+
+        @Override
+        public void updateDirty(List<E> entities, List<Set<String>> dirtyProperties) {
+
+            for (int i = 0; i < entities.size(); i++) {
+                Set<String> properties = dirtyProperties.get(i);
+                writes.add("update " + entities.get(i) + " " + (properties == null ? "all" : new TreeSet<>(properties)));
+            }
+        }
+
+        @Override
+        public void delete(List<E> entities) {
+
+            entities.forEach(x -> writes.add("delete " + x));
+        }
+
+        List<String> sortedWrites() {
+
+            List<String> sorted = new ArrayList<>(writes);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+
+    @Data
+    public static class RoundTripSource {
+
+        private long employeeId;
+        private String employeeName;
+        private float otHours;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class RoundTripStage extends StageBase {
+
+        private long employeeId;
+        private String employeeName;
+        private float otHours;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class RoundTripLog extends LogBase {
+
+        private long employeeId;
+        private String employeeName;
+        private float otHours;
+    }
+
+    @Data
+    public static class RoundTripTarget {
+
+        private long employeeId;
+        private String employeeName;
+        private float otHours;
+    }
+}
@@ -0,0 +1,150 @@
+package com.tool.dataSync;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the key groups of {@link SortedMergeJoin}: rows are values of the form {@code key.tag}, the key being their
+ * integer part.
+ */
+public class SortedMergeJoinTest {
+
+    private static final Comparator<Object> KEY_COMPARATOR = Comparator.comparing(x -> (Integer) x);
+
+    @Test
+    public void groupsDuplicateKeysOfBothSides() {
+
+        List<SortedMergeJoin.KeyGroup<String, String>> groups = join(
+                Arrays.asList("1.a", "2.a", "2.b", "4.a"),
+                Arrays.asList("2.x", "2.y", "2.z", "3.x", "4.x", "4.y"));
+
+        assertEquals(4, groups.size());
+        assertGroup(groups.get(0), 1, Collections.singletonList("1.a"), Collections.emptyList());
+        assertGroup(groups.get(1), 2, Arrays.asList("2.a", "2.b"), Arrays.asList("2.x", "2.y", "2.z"));
+        assertGroup(groups.get(2), 3, Collections.emptyList(), Collections.singletonList("3.x"));
+        assertGroup(groups.get(3), 4, Collections.singletonList("4.a"), Arrays.asList("4.x", "4.y"));
+    }
+
+    @Test
+    public void groupsKeysOfOneSideOnly() {
+
+        List<SortedMergeJoin.KeyGroup<String, String>> sourceOnly = join(Arrays.asList("1.a", "1.b", "5.a"), Collections.emptyList());
+        assertEquals(2, sourceOnly.size());
+        assertGroup(sourceOnly.get(0), 1, Arrays.asList("1.a", "1.b"), Collections.emptyList());
+        assertGroup(sourceOnly.get(1), 5, Collections.singletonList("5.a"), Collections.emptyList());
+
+        List<SortedMergeJoin.KeyGroup<String, String>> stageOnly = join(Collections.emptyList(), Arrays.asList("7.x", "7.y"));
+        assertEquals(1, stageOnly.size());
+        assertGroup(stageOnly.get(0), 7, Collections.emptyList(), Arrays.asList("7.x", "7.y"));
+
+        assertEquals(0, join(Collections.emptyList(), Collections.emptyList()).size());
+    }
+
+    @Test
+    public void groupsDuplicatesAtTheEndOfOneSide() {
+
+        List<SortedMergeJoin.KeyGroup<String, String>> groups = join(
+                Arrays.asList("1.a", "9.a", "9.b", "9.c"),
+                Arrays.asList("1.x", "1.y"));
+
+        assertEquals(2, groups.size());
+        assertGroup(groups.get(0), 1, Collections.singletonList("1.a"), Arrays.asList("1.x", "1.y"));
+        assertGroup(groups.get(1), 9, Arrays.asList("9.a", "9.b", "9.c"), Collections.emptyList());
+    }
+
+    @Test
+    public void groupsLikeAMapOfBothSides() {
+
+        Random random = new Random(11);
+        for (int run = 0; run < 200; run++) {
+            List<String> sources = sortedRows(random, random.nextInt(50), "s");
+            List<String> stages = sortedRows(random, random.nextInt(50), "t");
+            Map<Integer, List<List<String>>> expected = new TreeMap<>();
+            sources.forEach(x -> expected.computeIfAbsent(key(x), k -> Arrays.asList(new ArrayList<>(), new ArrayList<>())).get(0).add(x));
+            stages.forEach(x -> expected.computeIfAbsent(key(x), k -> Arrays.asList(new ArrayList<>(), new ArrayList<>())).get(1).add(x));
+
+            List<SortedMergeJoin.KeyGroup<String, String>> groups = join(sources, stages);
+            assertEquals(expected.size(), groups.size());
+            Iterator<SortedMergeJoin.KeyGroup<String, String>> iterator = groups.iterator();
+            expected.forEach((key, rows) -> assertGroup(iterator.next(), key, rows.get(0), rows.get(1)));
+        }
+    }
+
+    @Test
+    public void rejectsUnsortedSources() {
+
+        assertUnsorted(Arrays.asList("1.a", "3.a", "2.a"), Arrays.asList("1.x", "2.x", "3.x"), "source");
+    }
+
+    @Test
+    public void rejectsUnsortedStages() {
+
+        assertUnsorted(Arrays.asList("1.a", "2.a"), Arrays.asList("2.x", "2.y", "1.x"), "stage");
+    }
+
+    private static void assertUnsorted(List<String> sources, List<String> stages, String side) {
+
+        SortedMergeJoin<String, String> mergeJoin = newJoin(sources, stages);
+        try {
+            while (mergeJoin.hasNext()) {
+                mergeJoin.next();
+            }
+            fail("unsorted " + side + " data was accepted");
+        } catch (RuntimeException e) {
+            assertEquals(side + " data is not sorted by unique key", e.getMessage().substring(0, e.getMessage().indexOf(',')));
+        }
+    }
+
+    private static void assertGroup(SortedMergeJoin.KeyGroup<String, String> group, int key, List<String> sources, List<String> stages) {
+
+        assertEquals(key, group.getKey());
+        assertEquals(sources, group.getSources());
+        assertEquals(stages, group.getStages());
+    }
+
+    private static List<SortedMergeJoin.KeyGroup<String, String>> join(List<String> sources, List<String> stages) {
+
+        SortedMergeJoin<String, String> mergeJoin = newJoin(sources, stages);
+        List<SortedMergeJoin.KeyGroup<String, String>> groups = new ArrayList<>();
+        while (mergeJoin.hasNext()) {
+            groups.add(mergeJoin.next());
+        }
+        assertFalse(mergeJoin.hasNext());
+        return groups;
+    }
+
+    private static SortedMergeJoin<String, String> newJoin(List<String> sources, List<String> stages) {
+
+        return new SortedMergeJoin<>(sources.iterator(), stages.iterator(), SortedMergeJoinTest::key, SortedMergeJoinTest::key,
+                KEY_COMPARATOR);
+    }
+
+    private static List<String> sortedRows(Random random, int size, String tag) {
+
+        List<String> rows = new ArrayList<>(size);
+        int key = random.nextInt(3);
+        for (int i = 0; i < size; i++) {
+            key += random.nextInt(3) == 0 ? 1 + random.nextInt(3) : 0;
+            rows.add(key + "." + tag + i);
+        }
+        return rows;
+    }
+
+    private static Integer key(String row) {
+
+        return Integer.valueOf(row.substring(0, row.indexOf('.')));
+    }
+}
@@ -0,0 +1,234 @@
+package com.tool.dataSync;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that a {@link CompactStageIndex} finds the same stage rows as a {@link HashStageIndex} on the same unique
+ * objects, with either kind of {@link UniqueKeyCodec}.
+ */
+public class StageIndexTest {
+
+    private static final LongKeyCodec<Row, TestStage> LONG_KEY_CODEC = new LongKeyCodec<Row, TestStage>() {
+
+        @Override
+        public long encodeSource(Row source) {
+
+            return LongKeyCodec.pack(source.id, source.day);
+        }
+
+        @Override
+        public long encodeStage(TestStage stage) {
+
+            return LongKeyCodec.pack(stage.row.id, stage.row.day);
+        }
+    };
+
+    private static final PackedKeyCodec<Row, TestStage> PACKED_KEY_CODEC = new PackedKeyCodec<Row, TestStage>() {
+
+        @Override
+        public int getMaxKeyLength() {
+
+            return 64;
+        }
+
+        @Override
+        public void encodeSource(Row source, ByteBuffer buffer) {
+
+            encode(source, buffer);
+        }
+
+        @Override
+        public void encodeStage(TestStage stage, ByteBuffer buffer) {
+
+            encode(stage.row, buffer);
+        }
+
+        private void encode(Row row, ByteBuffer buffer) {
+
+            byte[] code = row.code.getBytes(StandardCharsets.UTF_8);
+            buffer.put((byte) code.length).put(code).putInt(row.id).putInt(row.day);
+        }
+    };
+
+    private static final BiPredicate<Row, TestStage> SAME_VALUE = (source, stage) -> source.value == stage.row.value;
+
+    @Test
+    public void longKeysFindTheRowsOfTheHashIndex() {
+
+        Random random = new Random(1);
+        for (int run = 0; run < 50; run++) {
+            List<Row> stageRows = randomRows(random, 1 + random.nextInt(2000), 1, 300);
+            List<Row> sourceRows = randomRows(random, random.nextInt(2000), 1, 300);
+            assertSameMatches(stageRows, sourceRows, LONG_KEY_CODEC, x -> Arrays.asList(x.id, x.day));
+        }
+    }
+
+    @Test
+    public void packedKeysFindTheRowsOfTheHashIndex() {
+
+        Random random = new Random(2);
+        for (int run = 0; run < 50; run++) {
+            List<Row> stageRows = randomRows(random, 1 + random.nextInt(2000), 3, 100);
+            List<Row> sourceRows = randomRows(random, random.nextInt(2000), 3, 100);
+            assertSameMatches(stageRows, sourceRows, PACKED_KEY_CODEC, x -> Arrays.asList(x.code, x.id, x.day));
+        }
+    }
+
+    @Test
+    public void longKeysSpreadOverTheWholeRange() {
+
+        Random random = new Random(3);
+        List<Row> stageRows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            stageRows.add(new Row("", random.nextInt(), i % 7 == 0 ? Integer.MIN_VALUE : random.nextInt(), i % 3));
+        }
+        List<Row> sourceRows = new ArrayList<>(stageRows.subList(0, 2500));
+        sourceRows.addAll(randomRows(random, 2500, 1, 10));
+        assertSameMatches(stageRows, sourceRows, LONG_KEY_CODEC, x -> Arrays.asList(x.id, x.day));
+    }
+
+    @Test
+    public void duplicateKeysAreMatchedInOrder() {
+
+        TestStage first = new TestStage(new Row("a", 1, 1, 10));
+        TestStage second = new TestStage(new Row("a", 1, 1, 20));
+        TestStage third = new TestStage(new Row("a", 1, 1, 30));
+        TestStage other = new TestStage(new Row("a", 2, 1, 10));
+        CompactStageIndex<Row, TestStage> index = new CompactStageIndex<>(Arrays.asList(first, second, third, other), LONG_KEY_CODEC);
+
+        // the row of the same value wins, else the first unmatched one
+        assertSame(second, index.findUnmatched(new Row("a", 1, 1, 20), SAME_VALUE));
+        second.setAction(SyncAction.DEFAULT.getCode());
+        assertSame(first, index.findUnmatched(new Row("a", 1, 1, 99), SAME_VALUE));
+        first.setAction(SyncAction.UPDATE.getCode());
+        assertSame(third, index.findUnmatched(new Row("a", 1, 1, 99), SAME_VALUE));
+        third.setAction(SyncAction.UPDATE.getCode());
+        assertNull(index.findUnmatched(new Row("a", 1, 1, 30), SAME_VALUE));
+        assertNull(index.findUnmatched(new Row("a", 1, 1, 30), SAME_VALUE));
+        assertSame(other, index.findUnmatched(new Row("a", 2, 1, 99), SAME_VALUE));
+        assertNull(index.findUnmatched(new Row("a", 3, 1, 10), SAME_VALUE));
+
+        TestStage insert = new TestStage(new Row("a", 3, 1, 10));
+        insert.setAction(SyncAction.INSERT.getCode());
+        index.addInsert(insert.row, insert);
+        assertNull(index.findUnmatched(new Row("a", 3, 1, 10), SAME_VALUE));
+        List<TestStage> rows = index.getRows();
+        assertEquals(5, rows.size());
+        assertSame(other, rows.get(3));
+        assertSame(insert, rows.get(4));
+    }
+
+    /**
+     * Runs the diff loop over copies of the stage rows in both indexes: every source takes the row it finds, or
+     * inserts a new one, and both indexes must hand out the same rows in the same order.
+     */
+    private static void assertSameMatches(List<Row> stageRows, List<Row> sourceRows, UniqueKeyCodec<Row, TestStage> codec,
+                                          Function<Row, Object> uniqueObjFunction) {
+
+        List<TestStage> hashStages = stages(stageRows);
+        List<TestStage> compactStages = stages(stageRows);
+        StageIndex<Row, TestStage> hashIndex = new HashStageIndex<>(hashStages, uniqueObjFunction, x -> uniqueObjFunction.apply(x.row));
+        StageIndex<Row, TestStage> compactIndex = new CompactStageIndex<>(compactStages, codec);
+        for (int i = 0; i < sourceRows.size(); i++) {
+            Row source = sourceRows.get(i);
+            int expected = match(hashIndex, source, i);
+            int actual = match(compactIndex, source, i);
+            assertEquals("source " + i + " " + source, expected, actual);
+        }
+        assertEquals(positions(hashIndex.getRows()), positions(compactIndex.getRows()));
+        for (int i = 0; i < stageRows.size(); i++) {
+            assertEquals(hashStages.get(i).getAction(), compactStages.get(i).getAction());
+        }
+    }
+
+    private static int match(StageIndex<Row, TestStage> index, Row source, int sourcePosition) {
+
+        TestStage stage = index.findUnmatched(source, SAME_VALUE);
+        if (stage == null) {
+            TestStage insert = new TestStage(source);
+            insert.position = -1 - sourcePosition;
+            insert.setAction(SyncAction.INSERT.getCode());
+            index.addInsert(source, insert);
+            return insert.position;
+        }
+        stage.setAction(SAME_VALUE.test(source, stage) ? SyncAction.DEFAULT.getCode() : SyncAction.UPDATE.getCode());
+        return stage.position;
+    }
+
+    private static List<TestStage> stages(List<Row> rows) {
+
+        List<TestStage> stages = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            TestStage stage = new TestStage(row);
+            stage.position = stages.size();
+            stages.add(stage);
+        }
+        return stages;
+    }
+
+    private static List<Integer> positions(List<TestStage> stages) {
+
+        List<Integer> positions = new ArrayList<>(stages.size());
+        stages.forEach(x -> positions.add(x.position));
+        positions.sort(Comparator.naturalOrder());
+        return positions;
+    }
+
+    private static List<Row> randomRows(Random random, int size, int codes, int ids) {
+
+        Supplier<String> code = () -> "code-" + random.nextInt(codes) + (random.nextBoolean() ? "" : "x");
+        List<Row> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(new Row(code.get(), random.nextInt(ids) - ids / 2, random.nextInt(3), random.nextInt(4)));
+        }
+        return rows;
+    }
+
+    private static final class Row {
+
+        private final String code;
+        private final int id;
+        private final int day;
+        private final int value;
+
+        private Row(String code, int id, int day, int value) {
+
+            this.code = code;
+            this.id = id;
+            this.day = day;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+
+            return code + "/" + id + "/" + day + "=" + value;
+        }
+    }
+
+    private static final class TestStage extends StageBase {
+
+        private final Row row;
+        private int position;
+
+        private TestStage(Row row) {
+
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.tool.dataSync;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the arithmetic rounding of {@link ValueNormalizer} against {@link DecimalFormat}, which rounds half even on
+ * the exact binary value and is what the comparison used before.
+ */
+public class ValueNormalizerTest {
+
+    private static final int SAMPLES = 50000;
+
+    @Test
+    public void roundFloatMatchesDecimalFormatOnTies() {
+
+        // 2.675f is 2.67499995..., 1.005f is 1.00499999...: below the tie in binary, so both round down
+        float[] values = {2.675f, 1.005f, 0.125f, 0.375f, 2.5f, 3.5f, -2.675f, -1.005f, -0.125f, 0.0000005f,
+                0.0000015f, 0.0000025f, 1.0000005f, 123456.7890625f, 16777216f, 0f, -0f};
+        for (int scale : new int[]{0, 2, 6}) {
+            for (float value : values) {
+                assertRoundFloat(value, scale);
+            }
+        }
+        assertEquals(2.67f, ValueNormalizer.roundFloat(2.675f, 2), 0f);
+        assertEquals(1f, ValueNormalizer.roundFloat(1.005f, 2), 0f);
+        assertEquals(0.12f, ValueNormalizer.roundFloat(0.125f, 2), 0f);
+        assertEquals(0.38f, ValueNormalizer.roundFloat(0.375f, 2), 0f);
+    }
+
+    @Test
+    public void roundFloatMatchesDecimalFormatOnRandomValues() {
+
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            float value = (random.nextFloat() - 0.5f) * (float) Math.pow(10, random.nextInt(12) - 4);
+            assertRoundFloat(value, ValueNormalizer.DEFAULT_FLOAT_SCALE);
+            assertRoundFloat(value, 2);
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            float value = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(value) && !Float.isInfinite(value)) {
+                assertRoundFloat(value, ValueNormalizer.DEFAULT_FLOAT_SCALE);
+            }
+        }
+    }
+
+    @Test
+    public void roundFloatMatchesDecimalFormatOnTwoDigitDecimals() {
+
+        // every x.yz5 is a decimal tie, its float lies just above or below it
+        for (int i = 0; i < 100000; i++) {
+            assertRoundFloat(i / 1000f + 0.0005f, 3);
+            assertRoundFloat(Float.parseFloat(i + "5") / 1000f, 2);
+        }
+    }
+
+    @Test
+    public void roundFloatAboveExactScale() {
+
+        assertRoundFloat(0.1f, 14);
+        assertRoundFloat(1.2345678e-10f, 13);
+    }
+
+    @Test
+    public void roundFloatKeepsNaNAndInfinity() {
+
+        assertEquals(Float.floatToIntBits(Float.NaN), Float.floatToIntBits(ValueNormalizer.roundFloat(Float.NaN)));
+        assertEquals(Float.POSITIVE_INFINITY, ValueNormalizer.roundFloat(Float.POSITIVE_INFINITY), 0f);
+        assertEquals(Float.NEGATIVE_INFINITY, ValueNormalizer.roundFloat(Float.NEGATIVE_INFINITY), 0f);
+    }
+
+    @Test
+    public void roundDoubleMatchesDecimalFormat() {
+
+        double[] values = {2.675, 1.005, 0.125, 0.375, 2.5, -2.675, 1.0000005, 0.1 + 0.2, 1e15 + 0.5, 9007199254740993d};
+        for (int scale : new int[]{0, 2, 6}) {
+            for (double value : values) {
+                assertRoundDouble(value, scale);
+            }
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 4);
+            assertRoundDouble(value, 2);
+            assertRoundDouble(value, ValueNormalizer.DEFAULT_FLOAT_SCALE);
+        }
+        assertEquals(Double.NaN, ValueNormalizer.roundDouble(Double.NaN, 2), 0d);
+        assertEquals(Double.NEGATIVE_INFINITY, ValueNormalizer.roundDouble(Double.NEGATIVE_INFINITY, 2), 0d);
+    }
+
+    @Test
+    public void roundDecimalKeepsMatchingScale() {
+
+        BigDecimal value = new BigDecimal("2.68");
+        assertEquals(value, ValueNormalizer.roundDecimal(value, 2));
+        assertEquals(new BigDecimal("2.68"), ValueNormalizer.roundDecimal(new BigDecimal("2.675"), 2));
+        assertEquals(new BigDecimal("2.66"), ValueNormalizer.roundDecimal(new BigDecimal("2.665"), 2));
+    }
+
+    private static void assertRoundFloat(float value, int scale) {
+
+        float expected = Float.parseFloat(format(scale).format(value));
+        float actual = ValueNormalizer.roundFloat(value, scale);
+        assertEquals(value + " at scale " + scale, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+
+    private static void assertRoundDouble(double value, int scale) {
+
+        double expected = Double.parseDouble(format(scale).format(value));
+        double actual = ValueNormalizer.roundDouble(value, scale);
+        assertEquals(value + " at scale " + scale, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    private static DecimalFormat format(int scale) {
+
+        StringBuilder pattern = new StringBuilder("#");
+        if (scale > 0) {
+            pattern.append('.');
+            for (int i = 0; i < scale; i++) {
+                pattern.append('#');
+            }
+        }
+        return new DecimalFormat(pattern.toString(), DecimalFormatSymbols.getInstance(Locale.ROOT));
+    }
+}
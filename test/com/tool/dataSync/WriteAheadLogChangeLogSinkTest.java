@@ -0,0 +1,268 @@
+package com.tool.dataSync;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a {@link WriteAheadLogChangeLogSink} against a transaction manager without a resource, so transactions only
+ * drive the synchronizations, and a persistence strategy recording the inserted rows.
+ */
+public class WriteAheadLogChangeLogSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PlatformTransactionManager transactionManager = new NoResourceTransactionManager();
+    private final RecordingStrategy strategy = new RecordingStrategy();
+
+    @Test
+    public void replaysCommittedSegmentsOnStart() throws IOException {
+
+        Path directory = folder.getRoot().toPath();
+        write(directory.resolve("2-b.log"), "c", "d", "e");
+        write(directory.resolve("1-a.log"), "a", "b");
+        write(directory.resolve("3-c.wal"), "never committed");
+        write(directory.resolve("4-d.prepared"), "in doubt");
+
+        WriteAheadLogChangeLogSink<Entry> sink = this.newSink(directory, 2, Long.MAX_VALUE);
+        sink.start();
+        sink.close();
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), strategy.values());
+        assertEquals(Arrays.asList(2, 2, 1), strategy.batchSizes());
+        assertEquals(Collections.singletonList("4-d.prepared"), files(directory));
+    }
+
+    @Test
+    public void writesCommittedTransactionsAndDeletesTheirSegments() {
+
+        Path directory = folder.getRoot().toPath();
+        WriteAheadLogChangeLogSink<Entry> sink = this.newSink(directory, 2, Long.MAX_VALUE);
+        sink.start();
+        this.inTransaction(sink, false, "a", "b", "c");
+        this.inTransaction(sink, false, "d");
+        sink.close();
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), strategy.values());
+        assertEquals(Collections.emptyList(), files(directory));
+    }
+
+    @Test
+    public void discardsTheSegmentOnRollback() {
+
+        Path directory = folder.getRoot().toPath();
+        WriteAheadLogChangeLogSink<Entry> sink = this.newSink(directory, 2, Long.MAX_VALUE);
+        sink.start();
+        this.inTransaction(sink, true, "a", "b", "c");
+        try {
+            new TransactionTemplate(transactionManager).execute(status -> {
+                sink.append(new Entry("d"));
+                throw new IllegalStateException("sync failed");
+            });
+        } catch (IllegalStateException e) {
+            assertEquals("sync failed", e.getMessage());
+        }
+        this.inTransaction(sink, false, "e");
+        sink.close();
+
+        assertEquals(Collections.singletonList("e"), strategy.values());
+        assertEquals(Collections.emptyList(), files(directory));
+    }
+
+    @Test
+    public void retriesAFailedBatchAfterTheWrittenRows() throws InterruptedException {
+
+        Path directory = folder.getRoot().toPath();
+        strategy.failAt = 2;
+        WriteAheadLogChangeLogSink<Entry> sink = this.newSink(directory, 2, Long.MAX_VALUE);
+        sink.start();
+        this.inTransaction(sink, false, "a", "b", "c", "d", "e");
+        long deadline = System.currentTimeMillis() + 10000;
+        while (strategy.values().size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        sink.close();
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), strategy.values());
+        assertEquals(Collections.emptyList(), files(directory));
+    }
+
+    @Test
+    public void commitWaitsForTheWriterAboveMaxPendingBytes() throws InterruptedException {
+
+        Path directory = folder.getRoot().toPath();
+        strategy.blocked = new CountDownLatch(1);
+        WriteAheadLogChangeLogSink<Entry> sink = this.newSink(directory, 10, 1);
+        sink.start();
+        this.inTransaction(sink, false, "a");
+        Thread second = new Thread(() -> this.inTransaction(sink, false, "b"));
+        second.start();
+        second.join(300);
+        assertTrue(second.isAlive());
+
+        strategy.blocked.countDown();
+        second.join(10000);
+        assertFalse(second.isAlive());
+        sink.close();
+        assertEquals(Arrays.asList("a", "b"), strategy.values());
+    }
+
+    private WriteAheadLogChangeLogSink<Entry> newSink(Path directory, int batchSize, long maxPendingBytes) {
+
+        return new WriteAheadLogChangeLogSink<>(strategy, transactionManager, Entry.class, directory, batchSize, maxPendingBytes);
+    }
+
+    private void inTransaction(WriteAheadLogChangeLogSink<Entry> sink, boolean rollback, String... values) {
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            for (String value : values) {
+                sink.append(new Entry(value));
+            }
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+            return null;
+        });
+    }
+
+    private static void write(Path segment, String... values) throws IOException {
+
+        List<String> lines = new ArrayList<>();
+        for (String value : values) {
+            lines.add("{\"value\":\"" + value + "\"}");
+        }
+        Files.write(segment, lines, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> files(Path directory) {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(x -> x.getFileName().toString()).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Entry {
+
+        private String value;
+
+        public Entry() {
+
+        }
+
+        Entry(String value) {
+
+            this.value = value;
+        }
+
+        public String getValue() {
+
+            return value;
+        }
+
+        public void setValue(String value) {
+
+            this.value = value;
+        }
+    }
+
+    /**
+     * Records every inserted batch; the insert call {@code failAt} (1-based) fails once, and inserts wait for
+     * {@code blocked} while it is set.
+     */
+    private static final class RecordingStrategy implements SyncPersistenceStrategy<Entry> {
+
+        private final List<List<String>> batches = new ArrayList<>();
+        private volatile int failAt;
+        private volatile CountDownLatch blocked;
+        private int calls;
+
+        @Override
+        public void insert(List<Entry> entities) {
+
+            if (blocked != null) {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                if (++calls == failAt) {
+                    throw new IllegalStateException("database is down");
+                }
+                batches.add(entities.stream().map(Entry::getValue).collect(Collectors.toList()));
+            }
+        }
+
+        @Override
+        public void update(List<Entry> entities) {
+
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(List<Entry> entities) {
+
+            throw new UnsupportedOperationException();
+        }
+
+        synchronized List<String> values() {
+
+            return batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        }
+
+        synchronized List<Integer> batchSizes() {
+
+            return batches.stream().map(List::size).collect(Collectors.toList());
+        }
+    }
+
+    private static final class NoResourceTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+
+        }
+    }
+}
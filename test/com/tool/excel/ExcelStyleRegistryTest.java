@@ -0,0 +1,63 @@
+package com.tool.excel;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link ExcelStyleRegistry} creates one style per key and detects a shared style that was changed.
+ */
+public class ExcelStyleRegistryTest {
+
+    @Test
+    public void createsOneStylePerKey() throws IOException {
+
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            ExcelStyleRegistry registry = new ExcelStyleRegistry(wb);
+            int workbookStyles = wb.getNumCellStyles();
+            AtomicInteger created = new AtomicInteger();
+            short red = IndexedColors.RED.getIndex();
+            for (int i = 0; i < 1000; i++) {
+                registry.get(ExcelStyleRegistry.StyleKey.BODY);
+                registry.get(ExcelStyleRegistry.StyleKey.BODY.withFillColor(red), () -> {
+                    created.incrementAndGet();
+                    return wb.createCellStyle();
+                });
+            }
+
+            assertEquals(1, created.get());
+            assertEquals(2, registry.size());
+            assertEquals(workbookStyles + 2, wb.getNumCellStyles());
+            assertSame(registry.get(ExcelStyleRegistry.StyleKey.BODY), registry.get(ExcelStyleRegistry.StyleKey.BODY));
+            assertNotSame(registry.get(ExcelStyleRegistry.StyleKey.BODY), registry.get(ExcelStyleRegistry.StyleKey.HEADER));
+            registry.verifyUnchanged();
+        }
+    }
+
+    @Test
+    public void detectsAChangedStyle() throws IOException {
+
+        try (HSSFWorkbook wb = new HSSFWorkbook()) {
+            ExcelStyleRegistry registry = new ExcelStyleRegistry(wb);
+            registry.get(ExcelStyleRegistry.StyleKey.HEADER);
+            CellStyle body = registry.get(ExcelStyleRegistry.StyleKey.BODY, wb::createCellStyle);
+            body.setAlignment(HorizontalAlignment.LEFT);
+            try {
+                registry.verifyUnchanged();
+                fail("a changed style was not detected");
+            } catch (IllegalStateException e) {
+                assertEquals("cell style " + ExcelStyleRegistry.StyleKey.BODY + " was changed after it was registered", e.getMessage());
+            }
+        }
+    }
+}
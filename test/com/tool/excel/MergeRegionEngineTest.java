@@ -0,0 +1,146 @@
+package com.tool.excel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pins the regions of {@link MergeRegionEngine}: only adjacent rows merge and child regions are clipped to their
+ * parent region. On sorted rows with distinct names per parent the regions are those of the grouping generator it
+ * replaced, which is kept here as {@link #legacyMergeMetaData}.
+ */
+public class MergeRegionEngineTest {
+
+    private static final List<Function<String[], ?>> LEVELS = Arrays.asList(x -> x[0], x -> x[1], x -> x[2]);
+
+    @Test
+    public void mergesOnlyAdjacentRows() {
+
+        MergeRegionEngine.MergeRegions regions = MergeRegionEngine.compute(Arrays.asList(
+                row("r", "a", "c1"), row("r", "a", "c1"), row("r", "a", "c2"), row("r", "a", "c1"), row("r", "a", "c1")), LEVELS);
+
+        assertRegions(regions, 0, new int[][]{{0, 4}});
+        assertRegions(regions, 1, new int[][]{{0, 4}});
+        assertRegions(regions, 2, new int[][]{{0, 1}, {3, 4}});
+    }
+
+    @Test
+    public void clipsChildrenToTheirParent() {
+
+        MergeRegionEngine.MergeRegions regions = MergeRegionEngine.compute(Arrays.asList(
+                row("r1", "a", "c"), row("r1", "a", "c"), row("r1", "b", "c"), row("r2", "b", "c"), row("r2", "b", "c")), LEVELS);
+
+        assertRegions(regions, 0, new int[][]{{0, 2}, {3, 4}});
+        // area b and camp c continue across the region change, but are cut at it
+        assertRegions(regions, 1, new int[][]{{0, 1}, {3, 4}});
+        assertRegions(regions, 2, new int[][]{{0, 1}, {3, 4}});
+    }
+
+    @Test
+    public void dropsSingleRows() {
+
+        MergeRegionEngine.MergeRegions regions = MergeRegionEngine.compute(Arrays.asList(
+                row("r1", "a", "c1"), row("r2", "b", "c2"), row("r2", "b", "c3")), LEVELS);
+
+        assertRegions(regions, 0, new int[][]{{1, 2}});
+        assertRegions(regions, 1, new int[][]{{1, 2}});
+        assertRegions(regions, 2, new int[][]{});
+
+        MergeRegionEngine.MergeRegions empty = MergeRegionEngine.compute(new ArrayList<>(), LEVELS);
+        for (int level = 0; level < LEVELS.size(); level++) {
+            assertEquals(0, empty.size(level));
+        }
+    }
+
+    @Test
+    public void matchesTheLegacyGeneratorOnSortedRows() {
+
+        Map<Integer, Function<String[], String>> mergeColumns = new HashMap<>();
+        mergeColumns.put(1, x -> x[0]);
+        mergeColumns.put(3, x -> x[1]);
+        mergeColumns.put(4, x -> x[2]);
+        Random random = new Random(5);
+        for (int run = 0; run < 100; run++) {
+            List<String[]> rows = sortedRows(random);
+            assertEquals(legacyMergeMetaData(rows, mergeColumns), new DefaultExcelCellMergeMetaDataGenerator<>(mergeColumns).generate(rows));
+        }
+    }
+
+    @Test
+    public void streamedRowsGiveTheSameRegions() {
+
+        List<String[]> rows = sortedRows(new Random(6));
+        MergeRegionEngine<String[]> engine = new MergeRegionEngine<>(LEVELS);
+        rows.forEach(engine::add);
+
+        assertEquals(MergeRegionEngine.compute(rows, LEVELS).toMergeMetaData(0, 1, 2), engine.finish().toMergeMetaData(0, 1, 2));
+    }
+
+    /**
+     * Rows sorted by region, area and camp; every name includes its parents, so a name never repeats under another
+     * parent.
+     */
+    private static List<String[]> sortedRows(Random random) {
+
+        List<String[]> rows = new ArrayList<>();
+        for (int region = random.nextInt(4); region >= 0; region--) {
+            for (int area = random.nextInt(4); area >= 0; area--) {
+                for (int camp = random.nextInt(4); camp >= 0; camp--) {
+                    for (int employee = random.nextInt(4); employee >= 0; employee--) {
+                        rows.add(row("r" + region, "r" + region + "a" + area, "r" + region + "a" + area + "c" + camp));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The merge metadata of every column as the generator computed it before {@link MergeRegionEngine}: rows are
+     * grouped by the value of the column alone and every group becomes one region.
+     */
+    private static Map<Integer, List<Pair<Integer, Integer>>> legacyMergeMetaData(List<String[]> datas,
+                                                                                 Map<Integer, Function<String[], String>> mergeColumns) {
+
+        Map<Integer, List<Pair<Integer, Integer>>> mergeMetaDataMap = new HashMap<>(mergeColumns.size());
+        mergeColumns.forEach((column, classifier) -> {
+            Map<String, Integer> dataSizesByValue = datas.stream().collect(Collectors.groupingBy(classifier, LinkedHashMap::new,
+                    Collectors.reducing(0, e -> 1, Integer::sum)));
+            Collection<Integer> dataSizes = dataSizesByValue.values();
+            List<Pair<Integer, Integer>> mergeMetaDatas = new ArrayList<>(dataSizes.size());
+            int start = 0;
+            for (Integer dataSize : dataSizes) {
+                mergeMetaDatas.add(new Pair<>(start, start + dataSize - 1));
+                start += dataSize;
+            }
+            mergeMetaDatas.removeIf(x -> x.getFirst().equals(x.getSecond()));
+            mergeMetaDataMap.put(column, mergeMetaDatas);
+        });
+        return mergeMetaDataMap;
+    }
+
+    private static void assertRegions(MergeRegionEngine.MergeRegions regions, int level, int[][] expected) {
+
+        assertEquals("regions of level " + level, expected.length, regions.size(level));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], regions.first(level, i));
+            assertEquals(expected[i][1], regions.last(level, i));
+        }
+    }
+
+    private static String[] row(String region, String area, String camp) {
+
+        return new String[]{region, area, camp};
+    }
+}